@@ -0,0 +1,92 @@
+package com.dcisman.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response serialization with an {@link ObjectMapper} configured the way
+ * Spring MVC configures its own.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private LeaderboardResponse leaderboard;
+    private GameSessionResponse session;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        List<LeaderboardEntry> entries = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            entries.add(LeaderboardEntry.builder()
+                    .userId((long) i)
+                    .username("player" + i)
+                    .name("Player " + i)
+                    .idNumber(String.valueOf(20_000_000 + i))
+                    .value(100_000 - i)
+                    .rank(i + 1)
+                    .build());
+        }
+        leaderboard = LeaderboardResponse.builder()
+                .category("HIGH_SCORE")
+                .window("all-time")
+                .entries(entries)
+                .lastUpdated(LocalDateTime.now())
+                .totalPlayers(10_000)
+                .currentPage(0)
+                .totalPages(10_000 / pageSize)
+                .pageSize(pageSize)
+                .nextCursor("SElHSF9TQ09SRTo5OTkwMTo5OTo5OQ")
+                .build();
+
+        session = GameSessionResponse.builder()
+                .id(1_000L)
+                .userId(42L)
+                .username("player42")
+                .score(12_345)
+                .levelReached(4)
+                .durationSeconds(300)
+                .ghostsEaten(17)
+                .powerUpsUsed(6)
+                .status("COMPLETED")
+                .startedAt(LocalDateTime.now().minusMinutes(5))
+                .endedAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Benchmark
+    public byte[] leaderboardResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(leaderboard);
+    }
+
+    @Benchmark
+    public byte[] gameSessionResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(session);
+    }
+}
@@ -0,0 +1,141 @@
+package com.dcisman.repository;
+
+import com.dcisman.DcismanApplication;
+import com.dcisman.dto.LeaderboardEntry;
+import com.dcisman.entity.User;
+import com.dcisman.entity.UserStats;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of the high-score leaderboard read from the database, hydrating
+ * {@code UserStats} and {@code User} entities and mapping them to entries
+ * (the previous read path) against projecting the columns straight into
+ * entries. The backend runs on an in-memory H2 database, so the numbers leave
+ * out the network but keep Hibernate's per-row work. Run with {@code -prof gc}
+ * to see the allocation difference.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LeaderboardReadBenchmark {
+
+    private static final int PLAYERS = 5_000;
+
+    @Param({"10", "100", "1000"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private UserStatsRepository userStatsRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnly;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(DcismanApplication.class)
+                .run("--server.port=0",
+                        "--management.server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:leaderboard-bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                                + "CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.sql.init.mode=never",
+                        "--leaderboard.index.enabled=false",
+                        "--jwt.secret=bGVhZGVyYm9hcmQtYmVuY2htYXJrLXNlY3JldC1rZXktb2YtYXQtbGVhc3QtMjU2LWJpdHM=",
+                        "--jwt.expiration=86400000",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate.tool.schema=ERROR");
+
+        userStatsRepository = context.getBean(UserStatsRepository.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                context.getBean(EntityManagerFactory.class));
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        seed(context.getBean(UserRepository.class), new TransactionTemplate(transactionManager));
+    }
+
+    private void seed(UserRepository userRepository, TransactionTemplate transaction) {
+        transaction.executeWithoutResult(status -> {
+            List<UserStats> stats = new ArrayList<>(PLAYERS);
+            for (int i = 0; i < PLAYERS; i++) {
+                User user = userRepository.save(User.builder()
+                        .username("player" + i)
+                        .email("player" + i + "@dcisman.test")
+                        .passwordHash("unused")
+                        .name("Player " + i)
+                        .idNumber(String.valueOf(20_000_000 + i))
+                        .build());
+                stats.add(UserStats.builder()
+                        .user(user)
+                        .highestScore((i * 7_919) % 100_000)
+                        .highestLevelReached(i % 20)
+                        .totalGhostsEaten(i % 1_000)
+                        .build());
+            }
+            userStatsRepository.saveAll(stats);
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<LeaderboardEntry> entities() {
+        return readOnly.execute(status -> {
+            List<UserStats> page = entityManager.createQuery(
+                            "SELECT us FROM UserStats us JOIN FETCH us.user ORDER BY us.highestScore DESC, us.user.id ASC",
+                            UserStats.class)
+                    .setMaxResults(pageSize)
+                    .getResultList();
+            List<LeaderboardEntry> entries = new ArrayList<>(page.size());
+            for (int i = 0; i < page.size(); i++) {
+                UserStats stats = page.get(i);
+                User user = stats.getUser();
+                entries.add(new LeaderboardEntry(user.getId(), user.getUsername(), user.getName(),
+                        user.getIdNumber(), stats.getHighestScore(), i + 1));
+            }
+            return entries;
+        });
+    }
+
+    @Benchmark
+    public List<LeaderboardEntry> projection() {
+        List<LeaderboardEntry> entries = userStatsRepository.findTopByHighestScore(PageRequest.of(0, pageSize));
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).setRank(i + 1);
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,84 @@
+package com.dcisman.security;
+
+import com.dcisman.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification. The cached variants are what every request
+ * after a user's first pays; the uncached ones are the full HMAC parse.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    static final String SECRET = "benchmark-secret-key-that-is-at-least-256-bits-long-for-hs256";
+
+    private JwtUtil cached;
+    private JwtUtil uncached;
+    private Cache<?, ?> uncachedTokens;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cached = jwtUtil(10_000);
+        uncached = jwtUtil(10_000);
+        uncachedTokens = (Cache<?, ?>) ReflectionTestUtils.getField(uncached, "verifiedTokens");
+        user = User.builder().id(42L).username("player42").role(User.Role.USER).build();
+        token = cached.generateToken(user);
+    }
+
+    static JwtUtil jwtUtil(long cacheMaxSize) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", cacheMaxSize);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cached.generateToken(user);
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return cached.validateToken(token);
+    }
+
+    @Benchmark
+    public Boolean validateTokenUncached() {
+        // Dropping the one cached entry forces a full parse and signature check
+        uncachedTokens.invalidateAll();
+        return uncached.validateToken(token);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return cached.extractUsername(token);
+    }
+
+    @Benchmark
+    public String extractUsernameUncached() {
+        uncachedTokens.invalidateAll();
+        return uncached.extractUsername(token);
+    }
+}
@@ -0,0 +1,57 @@
+package com.dcisman.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logins and registrations per second on one core at each BCrypt cost. A
+ * login verifies one stored hash and a registration makes one; a login that
+ * rehashes does both. Multiplied by {@code password-hashing.threads}, this is
+ * the sign-in capacity the hashing pool has at that cost, which is the other
+ * side of the security margin {@code password-hashing.target-latency-ms} buys.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 4)
+@Threads(1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordHashingBenchmark {
+
+    private static final String PASSWORD = "correct-horse-battery";
+
+    @Param({"8", "10", "11", "12", "13"})
+    private int cost;
+
+    private BCryptCostPasswordEncoder encoder;
+    private String storedHash;
+
+    @Setup
+    public void setUp() {
+        encoder = new BCryptCostPasswordEncoder(cost);
+        storedHash = encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean login() {
+        return encoder.matches(PASSWORD, storedHash);
+    }
+
+    @Benchmark
+    public String register() {
+        return encoder.encode(PASSWORD);
+    }
+}
@@ -0,0 +1,57 @@
+package com.dcisman.service;
+
+import com.dcisman.dto.GameSessionResponse;
+import com.dcisman.entity.GameSession;
+import com.dcisman.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.objenesis.ObjenesisStd;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping done for every game session response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GameSessionServiceBenchmark {
+
+    private GameSessionService gameSessionService;
+    private GameSession session;
+
+    @Setup
+    public void setUp() {
+        gameSessionService = new ObjenesisStd().newInstance(GameSessionService.class);
+        User user = User.builder().id(42L).username("player42").build();
+        session = GameSession.builder()
+                .id(1_000L)
+                .user(user)
+                .score(12_345)
+                .levelReached(4)
+                .durationSeconds(300)
+                .ghostsEaten(17)
+                .powerUpsUsed(6)
+                .status(GameSession.Status.COMPLETED)
+                .startedAt(LocalDateTime.now().minusMinutes(5))
+                .endedAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Benchmark
+    public GameSessionResponse toResponse() {
+        return gameSessionService.toResponse(session);
+    }
+}
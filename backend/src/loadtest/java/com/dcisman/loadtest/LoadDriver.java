@@ -0,0 +1,398 @@
+package com.dcisman.loadtest;
+
+import com.dcisman.DcismanApplication;
+import com.dcisman.config.QueryBudget;
+import com.dcisman.config.QueryBudgetInterceptor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End-to-end load test that needs nothing but this machine. Boots the backend
+ * in-process on an in-memory H2 database in MySQL mode (the {@code loadtest}
+ * profile) and plays N simulated players against it over loopback HTTP. Each
+ * player registers and logs in, then plays games back to back: start, a
+ * heartbeat every 5 s for a random game length, end. Every player also polls
+ * the leaderboard every 60 s. Every player is one virtual thread.
+ *
+ * <pre>
+ * mvn -Ploadtest compile exec:java \
+ *     -Dexec.args="--players 2000 --duration-seconds 300 --virtual-threads true"
+ * </pre>
+ *
+ * Latencies go into one HDR histogram per endpoint. The report gives
+ * throughput and p50/p95/p99/p99.9 per endpoint, and the full percentile
+ * distributions are written next to the CSV summary. An in-process run also
+ * fails if any endpoint exceeded its {@link QueryBudget}. Pass {@code --url} to
+ * drive an already running backend instead of booting one.
+ *
+ * <p>{@code --players} and {@code --virtual-threads} take comma-separated
+ * lists, and each combination gets a freshly booted backend. This compares the
+ * platform and virtual thread modes in one invocation, with rows labelled
+ * {@code <label>-platform} and {@code <label>-virtual}:
+ *
+ * <pre>
+ * mvn -Ploadtest compile exec:java \
+ *     -Dexec.args="--players 1000,5000,10000 --virtual-threads false,true --label modes"
+ * </pre>
+ */
+public final class LoadDriver {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String PASSWORD = "loadtest-password";
+    private static final List<String> ENDPOINTS =
+            List.of("register", "login", "start", "heartbeat", "end", "leaderboard");
+    // Anything slower than a minute is recorded as a minute
+    private static final long MAX_TRACKED_MICROS = Duration.ofMinutes(1).toNanos() / 1000;
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final Duration duration;
+    private final Duration ramp;
+    private final long heartbeatMillis;
+    private final long pollMillis;
+    private final int minGameSeconds;
+    private final int maxGameSeconds;
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    private static final class Endpoint {
+        final Histogram micros = new ConcurrentHistogram(MAX_TRACKED_MICROS, 3);
+        final LongAdder errors = new LongAdder();
+    }
+
+    private LoadDriver(String baseUrl, Map<String, String> options) {
+        this.baseUrl = baseUrl;
+        this.duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration-seconds", "300")));
+        this.ramp = Duration.ofSeconds(Long.parseLong(options.getOrDefault("ramp-seconds", "60")));
+        this.heartbeatMillis = Long.parseLong(options.getOrDefault("heartbeat-ms", "5000"));
+        this.pollMillis = Long.parseLong(options.getOrDefault("poll-ms", "60000"));
+        this.minGameSeconds = Integer.parseInt(options.getOrDefault("min-game-seconds", "60"));
+        this.maxGameSeconds = Integer.parseInt(options.getOrDefault("max-game-seconds", "300"));
+        this.client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        for (String endpoint : ENDPOINTS) {
+            endpoints.put(endpoint, new Endpoint());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int[] playerCounts = Arrays.stream(options.getOrDefault("players", "1000").split(","))
+                .mapToInt(count -> Integer.parseInt(count.trim()))
+                .toArray();
+        String label = options.getOrDefault("label", "load");
+        Path out = Path.of(options.getOrDefault("out", "target/load-driver"));
+
+        String url = options.get("url");
+        if (url != null) {
+            // The running backend's thread mode is whatever it was started with
+            for (int players : playerCounts) {
+                runOnce(url, options, label, players, out);
+            }
+            return;
+        }
+
+        List<Boolean> modes = Arrays.stream(options.getOrDefault("virtual-threads", "true").split(","))
+                .map(mode -> Boolean.parseBoolean(mode.trim()))
+                .toList();
+        for (boolean virtualThreads : modes) {
+            String modeLabel = modes.size() > 1 ? label + "-" + (virtualThreads ? "virtual" : "platform") : label;
+            for (int players : playerCounts) {
+                // A fresh backend per run, so no run starts on another run's data
+                try (ConfigurableApplicationContext backend = boot(virtualThreads)) {
+                    int port = ((WebServerApplicationContext) backend).getWebServer().getPort();
+                    runOnce("http://127.0.0.1:" + port, options, modeLabel, players, out);
+                    checkQueryBudgets(backend);
+                }
+            }
+        }
+    }
+
+    private static void runOnce(String baseUrl, Map<String, String> options, String label, int players, Path out)
+            throws InterruptedException, IOException {
+        LoadDriver driver = new LoadDriver(baseUrl, options);
+        long start = System.nanoTime();
+        driver.run(players);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        driver.report(System.out, label, players, elapsed);
+        driver.write(out, label, players, elapsed);
+    }
+
+    private static ConfigurableApplicationContext boot(boolean virtualThreads) {
+        System.out.printf("Booting backend on H2 (virtual threads: %s)...%n", virtualThreads);
+        return SpringApplication.run(DcismanApplication.class,
+                "--spring.profiles.active=loadtest",
+                "--spring.threads.virtual.enabled=" + virtualThreads);
+    }
+
+    /**
+     * Fails the run if any endpoint issued more SQL statements than its
+     * {@link QueryBudget}. Only possible in-process, where the meters are visible.
+     */
+    private static void checkQueryBudgets(ConfigurableApplicationContext backend) {
+        Collection<Counter> overruns = backend.getBean(MeterRegistry.class)
+                .find(QueryBudgetInterceptor.EXCEEDED_METRIC)
+                .counters();
+        long total = 0;
+        for (Counter counter : overruns) {
+            System.out.printf("Query budget exceeded: %s %s, %d requests%n",
+                    counter.getId().getTag("method"), counter.getId().getTag("uri"), (long) counter.count());
+            total += (long) counter.count();
+        }
+        if (total > 0) {
+            throw new IllegalStateException(total + " requests exceeded their query budget");
+        }
+        System.out.println("All requests stayed within their query budgets");
+    }
+
+    private void run(int players) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        System.out.printf("Running %d players for %d s (ramp-up %d s)...%n",
+                players, duration.toSeconds(), ramp.toSeconds());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < players; i++) {
+                long delay = ramp.toMillis() * i / Math.max(1, players);
+                String username = "player_" + i + "_" + Long.toHexString(System.nanoTime());
+                executor.submit(() -> play(username, delay, deadline));
+            }
+        }
+    }
+
+    private void play(String username, long delayMillis, long deadline) {
+        try {
+            Thread.sleep(delayMillis);
+            JsonNode registered = callAdmitted("register", "/api/auth/register", Map.of(
+                    "username", username,
+                    "email", username + "@loadtest.local",
+                    "password", PASSWORD), deadline);
+            JsonNode loggedIn = callAdmitted("login", "/api/auth/login", Map.of(
+                    "usernameOrEmail", username,
+                    "password", PASSWORD), deadline);
+            JsonNode auth = loggedIn != null ? loggedIn : registered;
+            if (auth == null) {
+                return;
+            }
+            String token = auth.get("token").asText();
+
+            long nextPoll = System.nanoTime()
+                    + ThreadLocalRandom.current().nextLong(pollMillis) * 1_000_000;
+            while (System.nanoTime() < deadline) {
+                nextPoll = playGame(token, deadline, nextPoll);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * One game from start to end, polling the leaderboard whenever a poll falls
+     * due. Returns when the next poll is due.
+     */
+    private long playGame(String token, long deadline, long nextPoll) throws InterruptedException {
+        JsonNode session = call("start", "POST", "/api/game-sessions/start", token, Map.of());
+        if (session == null) {
+            Thread.sleep(heartbeatMillis);
+            return nextPoll;
+        }
+        long id = session.get("id").asLong();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int gameSeconds = random.nextInt(minGameSeconds, maxGameSeconds + 1);
+        int seconds = 0;
+        int score = 0;
+        int ghosts = 0;
+
+        while (seconds < gameSeconds && System.nanoTime() < deadline) {
+            long nextHeartbeat = System.nanoTime() + heartbeatMillis * 1_000_000;
+            if (nextPoll < nextHeartbeat) {
+                sleepUntil(nextPoll);
+                call("leaderboard", "GET", "/api/leaderboard?pageSize=10", token, null);
+                nextPoll += pollMillis * 1_000_000;
+            }
+            sleepUntil(nextHeartbeat);
+            seconds += (int) (heartbeatMillis / 1000);
+            score += random.nextInt(50, 500);
+            ghosts += random.nextInt(0, 3);
+            call("heartbeat", "PUT", "/api/game-sessions/" + id, token, Map.of(
+                    "score", score,
+                    "levelReached", 1 + score / 5000,
+                    "durationSeconds", seconds,
+                    "ghostsEaten", ghosts));
+        }
+
+        call("end", "POST", "/api/game-sessions/" + id + "/end", token, Map.of(
+                "score", score,
+                "levelReached", 1 + score / 5000,
+                "durationSeconds", seconds,
+                "ghostsEaten", ghosts,
+                "powerUpsUsed", score / 1000,
+                "status", seconds >= gameSeconds ? "COMPLETED" : "ABANDONED"));
+        return nextPoll;
+    }
+
+    /**
+     * POSTs to an endpoint that sheds load with 503, waiting out Retry-After and
+     * trying again until the run ends, as the frontend does. Each 503 counts as
+     * an error.
+     */
+    private JsonNode callAdmitted(String endpoint, String path, Object body, long deadline)
+            throws InterruptedException {
+        Endpoint stats = endpoints.get(endpoint);
+        while (true) {
+            HttpResponse<String> response = send(stats, "POST", path, null, body);
+            if (response == null || response.statusCode() != 503 || System.nanoTime() >= deadline) {
+                return parse(stats, response);
+            }
+            stats.errors.increment();
+            long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+            Thread.sleep(retryAfter * 1000);
+        }
+    }
+
+    private JsonNode call(String endpoint, String method, String path, String token, Object body) {
+        Endpoint stats = endpoints.get(endpoint);
+        return parse(stats, send(stats, method, path, token, body));
+    }
+
+    private JsonNode parse(Endpoint stats, HttpResponse<String> response) {
+        if (response == null) {
+            return null;
+        }
+        if (response.statusCode() >= 400) {
+            stats.errors.increment();
+            return null;
+        }
+        try {
+            return JSON.readTree(response.body());
+        } catch (IOException e) {
+            stats.errors.increment();
+            return null;
+        }
+    }
+
+    /**
+     * Sends one request and records its latency. Returns {@code null}, counting
+     * an error, if the request failed without a response.
+     */
+    private HttpResponse<String> send(Endpoint stats, String method, String path, String token, Object body) {
+        long start = System.nanoTime();
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(60));
+            if (body != null) {
+                request.header("Content-Type", "application/json")
+                        .method(method, HttpRequest.BodyPublishers.ofString(JSON.writeValueAsString(body)));
+            } else {
+                request.method(method, HttpRequest.BodyPublishers.noBody());
+            }
+            if (token != null) {
+                request.header("Authorization", "Bearer " + token);
+            }
+            HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            record(stats, start);
+            return response;
+        } catch (IOException e) {
+            record(stats, start);
+            stats.errors.increment();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static void record(Endpoint stats, long startNanos) {
+        long micros = (System.nanoTime() - startNanos) / 1000;
+        stats.micros.recordValue(Math.min(micros, MAX_TRACKED_MICROS));
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long millis = (nanoTime - System.nanoTime()) / 1_000_000;
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    private void report(PrintStream out, String label, int players, Duration elapsed) {
+        out.printf("%n%s, %d players, %d s%n", label, players, elapsed.toSeconds());
+        out.printf("%-12s %9s %7s %8s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms");
+        endpoints.forEach((name, stats) -> {
+            Histogram h = stats.micros;
+            out.printf("%-12s %9d %7d %8.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    name, h.getTotalCount(), stats.errors.sum(), h.getTotalCount() / (double) elapsed.toSeconds(),
+                    millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(95)),
+                    millis(h.getValueAtPercentile(99)), millis(h.getValueAtPercentile(99.9)),
+                    millis(h.getMaxValue()));
+        });
+    }
+
+    private void write(Path dir, String label, int players, Duration elapsed) throws IOException {
+        Files.createDirectories(dir);
+        Path summary = dir.resolve("summary.csv");
+        StringBuilder rows = new StringBuilder();
+        if (!Files.exists(summary)) {
+            rows.append("label,players,endpoint,requests,errors,req_per_s,p50_ms,p95_ms,p99_ms,p999_ms,max_ms\n");
+        }
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Histogram h = entry.getValue().micros;
+            rows.append(String.format("%s,%d,%s,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f%n",
+                    label, players, entry.getKey(), h.getTotalCount(), entry.getValue().errors.sum(),
+                    h.getTotalCount() / (double) elapsed.toSeconds(),
+                    millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(95)),
+                    millis(h.getValueAtPercentile(99)), millis(h.getValueAtPercentile(99.9)),
+                    millis(h.getMaxValue())));
+
+            // HdrHistogram's percentile distribution format, in milliseconds
+            try (PrintStream hgrm = new PrintStream(Files.newOutputStream(
+                    dir.resolve(label + "-" + players + "-" + entry.getKey() + ".hgrm")))) {
+                h.outputPercentileDistribution(hgrm, 1000.0);
+            }
+        }
+        Files.writeString(summary, rows, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        System.out.printf("%nResults written to %s%n", dir.toAbsolutePath());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value pairs, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -2,8 +2,10 @@ package com.dcisman;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class DcismanApplication {
     public static void main(String[] args) {
         SpringApplication.run(DcismanApplication.class, args);
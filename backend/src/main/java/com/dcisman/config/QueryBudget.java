@@ -0,0 +1,22 @@
+package com.dcisman.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Most SQL statements a handler may issue, counting everything from the start
+ * of the handler to the response being written (including lazy loads during
+ * serialization) but not the authentication filter. Checked by
+ * {@link QueryBudgetInterceptor}, so an N+1 regression shows up as a warning
+ * and in {@code dcisman.query_budget.exceeded} instead of as slow pages.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface QueryBudget {
+
+    int value();
+}
@@ -0,0 +1,60 @@
+package com.dcisman.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Compares the statements issued by handlers annotated with {@link QueryBudget}
+ * against their budget. Overruns are logged and counted per endpoint;
+ * {@code QueryBudgetTest} fails the build and the load driver fails a run that
+ * records any.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QueryBudgetInterceptor implements HandlerInterceptor {
+
+    public static final String EXCEEDED_METRIC = "dcisman.query_budget.exceeded";
+
+    private static final String START_ATTRIBUTE = QueryBudgetInterceptor.class.getName() + ".start";
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (budgetOf(handler) != null) {
+            request.setAttribute(START_ATTRIBUTE, RequestQueryCounter.count());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        QueryBudget budget = budgetOf(handler);
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (budget == null || start == null) {
+            return;
+        }
+
+        int statements = RequestQueryCounter.count() - (Integer) start;
+        if (statements > budget.value()) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : request.getRequestURI();
+            log.warn("{} {} issued {} SQL statements, over its budget of {}",
+                    request.getMethod(), uri, statements, budget.value());
+            meterRegistry.counter(EXCEEDED_METRIC, "method", request.getMethod(), "uri", uri).increment();
+        }
+    }
+
+    private static QueryBudget budgetOf(Object handler) {
+        return handler instanceof HandlerMethod method ? method.getMethodAnnotation(QueryBudget.class) : null;
+    }
+}
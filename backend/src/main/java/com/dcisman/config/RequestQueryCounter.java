@@ -0,0 +1,35 @@
+package com.dcisman.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+
+/**
+ * Counts the SQL statements executed on the current thread, whether they come
+ * from Hibernate or {@code JdbcTemplate}. A JDBC batch counts once, as it is one
+ * round trip. {@link DataSourceProxyConfig} attaches it to the data source;
+ * {@link RequestQueryMetricsFilter} and {@link QueryBudgetInterceptor} read it.
+ */
+public class RequestQueryCounter implements QueryExecutionListener {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        COUNT.get()[0]++;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int count() {
+        return COUNT.get()[0];
+    }
+}
@@ -1,13 +1,16 @@
 package com.dcisman.config;
 
+import com.dcisman.security.BCryptCostPasswordEncoder;
 import com.dcisman.security.JwtAuthenticationFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -16,12 +19,22 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 @EnableWebSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    static final List<String> ALLOWED_ORIGINS = List.of(
+        "http://localhost:5173",
+        "http://localhost:5174",
+        "https://dcisman.gdgoc.tech",
+        "https://dcism.org",
+        "https://pacman.dcism.org",
+        "https://www.dcism.org"
+    );
+
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
     @Bean
@@ -35,8 +48,15 @@ public class SecurityConfig {
         .authorizeHttpRequests(auth ->
                 auth
                         .requestMatchers("/api/health").permitAll()
+                        // Served on the management port, which is bound to localhost
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/api/leaderboard/*/me").authenticated()
+                        .requestMatchers("/api/leaderboard/stream").authenticated()
                         .requestMatchers("/api/leaderboard/**").permitAll()
+                        // Authenticated by the handshake interceptor from the token query parameter
+                        .requestMatchers("/ws/**").permitAll()
                         .anyRequest().authenticated()
         )
         .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
@@ -47,16 +67,10 @@ public class SecurityConfig {
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
-        configuration.setAllowedOrigins(Arrays.asList(
-            "http://localhost:5173",
-            "http://localhost:5174",
-            "https://dcisman.gdgoc.tech",
-            "https://dcism.org",
-            "https://pacman.dcism.org",
-            "https://www.dcism.org"
-        ));
+        configuration.setAllowedOrigins(ALLOWED_ORIGINS);
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(Arrays.asList("ETag"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
@@ -65,8 +79,26 @@ public class SecurityConfig {
         return source;
     }
 
+    /**
+     * BCrypt at a fixed cost, or when {@code password-hashing.cost} is 0 at the
+     * highest cost that meets the latency target on this machine. Hashes made
+     * at another cost still verify and are rewritten on the next login once
+     * their cost is more than {@code password-hashing.rehash-tolerance} away.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${password-hashing.cost:0}") int cost,
+            @Value("${password-hashing.target-latency-ms:100}") long targetLatencyMillis,
+            @Value("${password-hashing.min-cost:10}") int minCost,
+            @Value("${password-hashing.max-cost:14}") int maxCost,
+            @Value("${password-hashing.rehash-tolerance:1}") int rehashTolerance,
+            MeterRegistry meterRegistry) {
+        BCryptCostPasswordEncoder encoder = cost > 0
+                ? new BCryptCostPasswordEncoder(cost, rehashTolerance)
+                : BCryptCostPasswordEncoder.calibrated(targetLatencyMillis, minCost, maxCost, rehashTolerance);
+        Gauge.builder("dcisman.password_hashing.cost", encoder, BCryptCostPasswordEncoder::getCost)
+                .description("BCrypt cost new password hashes are made with")
+                .register(meterRegistry);
+        return encoder;
     }
 }
@@ -0,0 +1,128 @@
+package com.dcisman.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier, typically while
+ * blocking inside a {@code synchronized} block such as those in the JDBC driver.
+ * Listens to the JFR {@code jdk.VirtualThreadPinned} event in-process and
+ * groups occurrences by the first frame outside the JDK, so the culprit shows
+ * up in {@code GET /api/admin/virtual-threads} without taking a recording.
+ */
+@Component
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final int MAX_SITES = 50;
+    private static final int REPORTED_SITES = 10;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${virtual-threads.pinning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${virtual-threads.pinning.threshold-ms:20}")
+    private long thresholdMillis;
+
+    @Value("${virtual-threads.pinning.log-interval-ms:60000}")
+    private long logIntervalMillis;
+
+    private final LongAdder pinnedEvents = new LongAdder();
+    private final AtomicLong pinnedNanos = new AtomicLong();
+    private final AtomicLong lastLogged = new AtomicLong();
+    private final Map<String, LongAdder> sites = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+
+    @PostConstruct
+    public void start() {
+        if (!virtualThreads || !enabled) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned")
+                .withThreshold(Duration.ofMillis(thresholdMillis))
+                .withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        stream.startAsync();
+        log.info("Reporting virtual threads pinned for more than {} ms", thresholdMillis);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("virtualThreads", virtualThreads);
+        stats.put("pinningMonitor", stream != null);
+        stats.put("thresholdMillis", thresholdMillis);
+        stats.put("pinnedEvents", pinnedEvents.sum());
+        stats.put("pinnedMillis", pinnedNanos.get() / 1_000_000);
+        stats.put("topSites", topSites());
+        return stats;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedEvents.increment();
+        pinnedNanos.addAndGet(event.getDuration().toNanos());
+
+        String site = siteOf(event);
+        LongAdder count = sites.get(site);
+        if (count == null && sites.size() < MAX_SITES) {
+            count = sites.computeIfAbsent(site, s -> new LongAdder());
+        }
+        if (count != null) {
+            count.increment();
+        }
+
+        // Pinning tends to repeat on every request, so log at most once per interval
+        long now = System.currentTimeMillis();
+        long last = lastLogged.get();
+        if (now - last >= logIntervalMillis && lastLogged.compareAndSet(last, now)) {
+            log.warn("Virtual thread pinned for {} ms at {} ({} pinned so far)",
+                    event.getDuration().toMillis(), site, pinnedEvents.sum());
+        }
+    }
+
+    private static String siteOf(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return frames.isEmpty() ? "unknown" : frames.get(0).getMethod().getType().getName();
+    }
+
+    private List<Map<String, Object>> topSites() {
+        return sites.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> e) -> e.getValue().sum()).reversed())
+                .limit(REPORTED_SITES)
+                .map(e -> Map.<String, Object>of("site", e.getKey(), "events", e.getValue().sum()))
+                .toList();
+    }
+}
@@ -0,0 +1,43 @@
+package com.dcisman.config;
+
+import com.dcisman.controller.GameSessionSocketHandler;
+import com.dcisman.security.JwtHandshakeInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final GameSessionSocketHandler gameSessionSocketHandler;
+    private final JwtHandshakeInterceptor jwtHandshakeInterceptor;
+
+    @Value("${game-session.socket.max-frame-bytes:1024}")
+    private int maxFrameBytes;
+
+    @Value("${game-session.socket.idle-timeout-ms:60000}")
+    private long idleTimeoutMillis;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(gameSessionSocketHandler, "/ws/game-sessions")
+                .addInterceptors(jwtHandshakeInterceptor)
+                .setAllowedOrigins(SecurityConfig.ALLOWED_ORIGINS.toArray(String[]::new));
+    }
+
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(maxFrameBytes);
+        container.setMaxBinaryMessageBufferSize(maxFrameBytes);
+        container.setMaxSessionIdleTimeout(idleTimeoutMillis);
+        return container;
+    }
+}
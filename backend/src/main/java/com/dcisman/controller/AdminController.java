@@ -0,0 +1,97 @@
+package com.dcisman.controller;
+
+import com.dcisman.config.VirtualThreadPinningMonitor;
+import com.dcisman.dto.StatsRebuildResponse;
+import com.dcisman.entity.User;
+import com.dcisman.service.AuthService;
+import com.dcisman.service.GameSessionExportService;
+import com.dcisman.service.StatsProjectionService;
+import com.dcisman.service.StatsRebuildService;
+import com.dcisman.service.UserCache;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@Slf4j
+public class AdminController {
+
+    private final AuthService authService;
+    private final UserCache userCache;
+    private final GameSessionExportService gameSessionExportService;
+    private final StatsProjectionService statsProjectionService;
+    private final StatsRebuildService statsRebuildService;
+    private final VirtualThreadPinningMonitor pinningMonitor;
+
+    @GetMapping("/caches")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("users", userCache.stats());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/stats-projection")
+    public ResponseEntity<Map<String, Object>> getStatsProjection() {
+        return ResponseEntity.ok(statsProjectionService.stats());
+    }
+
+    @GetMapping("/virtual-threads")
+    public ResponseEntity<Map<String, Object>> getVirtualThreads() {
+        return ResponseEntity.ok(pinningMonitor.stats());
+    }
+
+    @PostMapping("/stats-rebuild")
+    public ResponseEntity<StatsRebuildResponse> startStatsRebuild(
+            @RequestParam(defaultValue = "true") boolean dryRun) {
+        log.info("Starting stats rebuild, dryRun={}", dryRun);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(statsRebuildService.start(dryRun));
+    }
+
+    @GetMapping("/stats-rebuild")
+    public ResponseEntity<StatsRebuildResponse> getStatsRebuild() {
+        return ResponseEntity.ok(statsRebuildService.getStatus());
+    }
+
+    /**
+     * Streams every game session with its player as NDJSON or CSV. Written
+     * straight to the servlet output stream so a long export is not cut off by
+     * the async request timeout.
+     */
+    @GetMapping("/exports/game-sessions")
+    public void exportGameSessions(
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+        GameSessionExportService.Format exportFormat = GameSessionExportService.Format.fromString(format);
+        log.info("Exporting game sessions as {}", exportFormat);
+
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"game-sessions." + exportFormat.getExtension() + "\"");
+        gameSessionExportService.export(exportFormat, response.getOutputStream());
+    }
+
+    @PutMapping("/users/{userId}/active")
+    public ResponseEntity<Map<String, Object>> setUserActive(
+            @PathVariable Long userId,
+            @RequestParam boolean active) {
+        log.info("Setting user {} active={}", userId, active);
+        User user = authService.setUserActive(userId, active);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", user.getId());
+        response.put("username", user.getUsername());
+        response.put("isActive", user.getIsActive());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -6,7 +6,9 @@ import com.dcisman.dto.MessageResponse;
 import com.dcisman.dto.RegisterRequest;
 import com.dcisman.dto.UpdateProfileRequest;
 import com.dcisman.entity.User;
+import com.dcisman.exception.ServiceUnavailableException;
 import com.dcisman.service.AuthService;
+import com.dcisman.service.UserCache;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -32,6 +34,9 @@ public class AuthController {
         try {
             AuthResponse response = authService.register(request);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (ServiceUnavailableException e) {
+            // Hashing queue is full; answered as 503 with Retry-After by GlobalExceptionHandler
+            throw e;
         } catch (Exception e) {
             log.error("Registration failed: {}", e.getMessage());
             return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
@@ -43,6 +48,8 @@ public class AuthController {
         try {
             AuthResponse response = authService.login(request);
             return ResponseEntity.ok(response);
+        } catch (ServiceUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Login failed: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -56,17 +63,17 @@ public class AuthController {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String username = authentication.getName();
 
-            User user = authService.getCurrentUser(username);
+            UserCache.CachedUser user = authService.getCurrentUser(username);
 
             Map<String, Object> response = new HashMap<>();
-            response.put("id", user.getId());
-            response.put("username", user.getUsername());
-            response.put("email", user.getEmail());
-            response.put("role", user.getRole().name());
-            response.put("name", user.getName());
-            response.put("idNumber", user.getIdNumber());
-            response.put("isActive", user.getIsActive());
-            response.put("createdAt", user.getCreatedAt());
+            response.put("id", user.id());
+            response.put("username", user.username());
+            response.put("email", user.email());
+            response.put("role", user.role().name());
+            response.put("name", user.name());
+            response.put("idNumber", user.idNumber());
+            response.put("isActive", user.active());
+            response.put("createdAt", user.createdAt());
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
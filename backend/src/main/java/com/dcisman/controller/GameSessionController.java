@@ -1,20 +1,20 @@
 package com.dcisman.controller;
 
+import com.dcisman.config.QueryBudget;
 import com.dcisman.dto.EndSessionRequest;
+import com.dcisman.dto.GameSessionHistoryResponse;
 import com.dcisman.dto.GameSessionResponse;
 import com.dcisman.dto.MessageResponse;
 import com.dcisman.dto.StartSessionRequest;
 import com.dcisman.dto.UpdateSessionRequest;
-import com.dcisman.entity.User;
-import com.dcisman.service.AuthService;
+import com.dcisman.security.AuthenticatedUser;
 import com.dcisman.service.GameSessionService;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -24,14 +24,14 @@ import org.springframework.web.bind.annotation.*;
 public class GameSessionController {
 
   private final GameSessionService gameSessionService;
-  private final AuthService authService;
 
   @PostMapping("/start")
   public ResponseEntity<?> startSession(
+    @AuthenticationPrincipal AuthenticatedUser principal,
     @RequestBody(required = false) StartSessionRequest request
   ) {
     try {
-      Long userId = getCurrentUserId();
+      Long userId = principal.getId();
       GameSessionResponse response = gameSessionService.startSession(userId);
       log.info("Started game session {} for user {}", response.getId(), userId);
       return ResponseEntity.status(HttpStatus.CREATED).body(response);
@@ -43,13 +43,15 @@ public class GameSessionController {
     }
   }
 
+  @QueryBudget(2)
   @PutMapping("/{sessionId}")
   public ResponseEntity<?> updateSession(
+    @AuthenticationPrincipal AuthenticatedUser principal,
     @PathVariable Long sessionId,
     @RequestBody UpdateSessionRequest request
   ) {
     try {
-      Long userId = getCurrentUserId();
+      Long userId = principal.getId();
       GameSessionResponse response = gameSessionService.updateSession(
         sessionId,
         userId,
@@ -66,11 +68,12 @@ public class GameSessionController {
 
   @PostMapping("/{sessionId}/end")
   public ResponseEntity<?> endSession(
+    @AuthenticationPrincipal AuthenticatedUser principal,
     @PathVariable Long sessionId,
     @RequestBody EndSessionRequest request
   ) {
     try {
-      Long userId = getCurrentUserId();
+      Long userId = principal.getId();
       GameSessionResponse response = gameSessionService.endSession(
         sessionId,
         userId,
@@ -86,10 +89,13 @@ public class GameSessionController {
     }
   }
 
+  @QueryBudget(1)
   @GetMapping
-  public ResponseEntity<?> getUserSessions() {
+  public ResponseEntity<?> getUserSessions(
+    @AuthenticationPrincipal AuthenticatedUser principal
+  ) {
     try {
-      Long userId = getCurrentUserId();
+      Long userId = principal.getId();
       List<GameSessionResponse> sessions = gameSessionService.getUserSessions(
         userId
       );
@@ -102,10 +108,39 @@ public class GameSessionController {
     }
   }
 
+  @QueryBudget(1)
+  @GetMapping("/history")
+  public ResponseEntity<?> getSessionHistory(
+    @AuthenticationPrincipal AuthenticatedUser principal,
+    @RequestParam(required = false) List<String> status,
+    @RequestParam(required = false) String cursor,
+    @RequestParam(defaultValue = "20") int pageSize
+  ) {
+    try {
+      GameSessionHistoryResponse response =
+        gameSessionService.getSessionHistory(
+          principal.getId(),
+          status,
+          cursor,
+          pageSize
+        );
+      return ResponseEntity.ok(response);
+    } catch (Exception e) {
+      log.error("Failed to get session history: {}", e.getMessage());
+      return ResponseEntity.badRequest().body(
+        new MessageResponse(e.getMessage())
+      );
+    }
+  }
+
+  @QueryBudget(1)
   @GetMapping("/{sessionId}")
-  public ResponseEntity<?> getSession(@PathVariable Long sessionId) {
+  public ResponseEntity<?> getSession(
+    @AuthenticationPrincipal AuthenticatedUser principal,
+    @PathVariable Long sessionId
+  ) {
     try {
-      Long userId = getCurrentUserId();
+      Long userId = principal.getId();
       GameSessionResponse response = gameSessionService.getSession(
         sessionId,
         userId
@@ -119,10 +154,13 @@ public class GameSessionController {
     }
   }
 
+  @QueryBudget(1)
   @GetMapping("/active")
-  public ResponseEntity<?> getActiveSession() {
+  public ResponseEntity<?> getActiveSession(
+    @AuthenticationPrincipal AuthenticatedUser principal
+  ) {
     try {
-      Long userId = getCurrentUserId();
+      Long userId = principal.getId();
       GameSessionResponse response = gameSessionService.getActiveSession(
         userId
       );
@@ -133,12 +171,4 @@ public class GameSessionController {
       );
     }
   }
-
-  private Long getCurrentUserId() {
-    Authentication authentication =
-      SecurityContextHolder.getContext().getAuthentication();
-    String username = authentication.getName();
-    User user = authService.getCurrentUser(username);
-    return user.getId();
-  }
 }
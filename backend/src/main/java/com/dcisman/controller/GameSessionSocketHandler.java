@@ -0,0 +1,126 @@
+package com.dcisman.controller;
+
+import com.dcisman.dto.EndSessionRequest;
+import com.dcisman.dto.GameSessionResponse;
+import com.dcisman.dto.UpdateSessionRequest;
+import com.dcisman.exception.BadRequestException;
+import com.dcisman.security.AuthenticatedUser;
+import com.dcisman.security.JwtHandshakeInterceptor;
+import com.dcisman.service.GameSessionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+/**
+ * In-game telemetry over a single WebSocket per player, authenticated once at
+ * the handshake. Frames are space-separated text:
+ *
+ * <pre>
+ * H &lt;sessionId&gt; &lt;score&gt; &lt;level&gt; &lt;duration&gt; &lt;ghosts&gt; &lt;powerUps&gt;
+ * E &lt;sessionId&gt; &lt;COMPLETED|ABANDONED&gt; &lt;score&gt; &lt;level&gt; &lt;duration&gt; &lt;ghosts&gt; &lt;powerUps&gt;
+ * </pre>
+ *
+ * Heartbeats are not acknowledged. An end frame is answered with {@code E}
+ * followed by the ended session as JSON, and any failed frame with
+ * {@code X <sessionId> <message>}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GameSessionSocketHandler extends TextWebSocketHandler {
+
+  private final GameSessionService gameSessionService;
+  private final ObjectMapper objectMapper;
+
+  @Override
+  protected void handleTextMessage(
+    WebSocketSession socket,
+    TextMessage message
+  ) throws IOException {
+    AuthenticatedUser principal = (AuthenticatedUser) socket
+      .getAttributes()
+      .get(JwtHandshakeInterceptor.PRINCIPAL_ATTRIBUTE);
+    String[] fields = message.getPayload().trim().split("\\s+");
+    String sessionId = fields.length > 1 ? fields[1] : "-";
+
+    try {
+      switch (fields[0]) {
+        case "H" -> heartbeat(principal, fields);
+        case "E" -> {
+          GameSessionResponse ended = end(principal, fields);
+          socket.sendMessage(
+            new TextMessage("E " + objectMapper.writeValueAsString(ended))
+          );
+        }
+        default -> throw new BadRequestException("Unknown frame type");
+      }
+    } catch (NumberFormatException e) {
+      reject(socket, sessionId, "Malformed frame");
+    } catch (RuntimeException e) {
+      log.debug(
+        "Rejected game session frame from user {}: {}",
+        principal.getId(),
+        e.getMessage()
+      );
+      reject(socket, sessionId, e.getMessage());
+    }
+  }
+
+  private void heartbeat(AuthenticatedUser principal, String[] fields) {
+    expectFields(fields, 7);
+    UpdateSessionRequest request = new UpdateSessionRequest(
+      Integer.valueOf(fields[2]),
+      Integer.valueOf(fields[3]),
+      Integer.valueOf(fields[4]),
+      Integer.valueOf(fields[5]),
+      Integer.valueOf(fields[6])
+    );
+    gameSessionService.updateSession(
+      Long.valueOf(fields[1]),
+      principal.getId(),
+      request
+    );
+  }
+
+  private GameSessionResponse end(
+    AuthenticatedUser principal,
+    String[] fields
+  ) {
+    expectFields(fields, 8);
+    EndSessionRequest request = new EndSessionRequest(
+      Integer.valueOf(fields[3]),
+      Integer.valueOf(fields[4]),
+      Integer.valueOf(fields[5]),
+      Integer.valueOf(fields[6]),
+      Integer.valueOf(fields[7]),
+      fields[2]
+    );
+    GameSessionResponse response = gameSessionService.endSession(
+      Long.valueOf(fields[1]),
+      principal.getId(),
+      request
+    );
+    log.info(
+      "Ended game session {} for user {}",
+      response.getId(),
+      principal.getId()
+    );
+    return response;
+  }
+
+  private void expectFields(String[] fields, int count) {
+    if (fields.length != count) {
+      throw new BadRequestException("Malformed frame");
+    }
+  }
+
+  private void reject(WebSocketSession socket, String sessionId, String reason)
+    throws IOException {
+    socket.sendMessage(new TextMessage("X " + sessionId + " " + reason));
+  }
+}
@@ -1,27 +1,51 @@
 package com.dcisman.controller;
 
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.CompositeHealth;
+import org.springframework.boot.actuate.health.HealthComponent;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 
+/**
+ * Public health check backed by the actuator health indicators (database,
+ * disk space). Only each component's status is shown here; the details are on
+ * the management port. Answers 503 when any component is down, so load
+ * balancers stop routing to an instance that lost its database.
+ */
 @RestController
 @RequestMapping("/api")
+@RequiredArgsConstructor
 public class HealthController {
 
+    private final HealthEndpoint healthEndpoint;
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> health() {
-        Map<String, Object> response = new HashMap<>();
-        response.put("status", "UP");
+        HealthComponent health = healthEndpoint.health();
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", health.getStatus().getCode());
         response.put("timestamp", LocalDateTime.now().toString());
         response.put("service", "dcisman-backend");
         response.put("version", "1.0.0");
+        if (health instanceof CompositeHealth composite) {
+            Map<String, String> components = new LinkedHashMap<>();
+            composite.getComponents().forEach((name, component) ->
+                    components.put(name, component.getStatus().getCode()));
+            response.put("components", components);
+        }
 
-        return ResponseEntity.ok(response);
+        HttpStatus status = Status.UP.equals(health.getStatus()) ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status).body(response);
     }
 }
@@ -1,13 +1,22 @@
 package com.dcisman.controller;
 
-import com.dcisman.dto.LeaderboardResponse;
+import com.dcisman.config.QueryBudget;
+import com.dcisman.dto.PlayerRankResponse;
+import com.dcisman.security.AuthenticatedUser;
+import com.dcisman.service.LeaderboardCategory;
 import com.dcisman.service.LeaderboardService;
+import com.dcisman.service.LeaderboardSnapshotCache;
+import com.dcisman.service.LeaderboardStreamService;
+import com.dcisman.service.LeaderboardWindow;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/leaderboard")
@@ -16,40 +25,92 @@ import java.util.List;
 public class LeaderboardController {
 
     private final LeaderboardService leaderboardService;
+    private final LeaderboardSnapshotCache snapshotCache;
+    private final LeaderboardStreamService leaderboardStreamService;
 
+    @QueryBudget(3)
     @GetMapping
-    public ResponseEntity<List<LeaderboardResponse>> getAllLeaderboards(
+    public ResponseEntity<byte[]> getAllLeaderboards(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int pageSize) {
-        log.info("Fetching all leaderboards - page: {}, pageSize: {}", page, pageSize);
-        List<LeaderboardResponse> leaderboards = leaderboardService.getAllLeaderboards(page, pageSize);
-        return ResponseEntity.ok(leaderboards);
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(defaultValue = "all-time") String window) {
+        log.debug("Fetching all leaderboards - window: {}, page: {}, pageSize: {}", window, page, pageSize);
+        return toResponse(snapshotCache.getAllLeaderboards(LeaderboardWindow.fromSlug(window), page, pageSize));
     }
 
+    @QueryBudget(1)
     @GetMapping("/high-score")
-    public ResponseEntity<LeaderboardResponse> getHighScoreLeaderboard(
+    public ResponseEntity<byte[]> getHighScoreLeaderboard(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int pageSize) {
-        log.info("Fetching high score leaderboard - page: {}, pageSize: {}", page, pageSize);
-        LeaderboardResponse leaderboard = leaderboardService.getHighScoreLeaderboard(page, pageSize);
-        return ResponseEntity.ok(leaderboard);
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "all-time") String window) {
+        log.debug("Fetching high score leaderboard - window: {}, page: {}, pageSize: {}, cursor: {}",
+                window, page, pageSize, cursor);
+        return toResponse(getPage(LeaderboardCategory.HIGH_SCORE, window, page, pageSize, cursor));
     }
 
+    @QueryBudget(1)
     @GetMapping("/highest-level")
-    public ResponseEntity<LeaderboardResponse> getHighestLevelLeaderboard(
+    public ResponseEntity<byte[]> getHighestLevelLeaderboard(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int pageSize) {
-        log.info("Fetching highest level leaderboard - page: {}, pageSize: {}", page, pageSize);
-        LeaderboardResponse leaderboard = leaderboardService.getHighestLevelLeaderboard(page, pageSize);
-        return ResponseEntity.ok(leaderboard);
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "all-time") String window) {
+        log.debug("Fetching highest level leaderboard - window: {}, page: {}, pageSize: {}, cursor: {}",
+                window, page, pageSize, cursor);
+        return toResponse(getPage(LeaderboardCategory.HIGHEST_LEVEL, window, page, pageSize, cursor));
     }
 
+    @QueryBudget(1)
     @GetMapping("/total-ghosts")
-    public ResponseEntity<LeaderboardResponse> getTotalGhostsLeaderboard(
+    public ResponseEntity<byte[]> getTotalGhostsLeaderboard(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int pageSize) {
-        log.info("Fetching total ghosts leaderboard - page: {}, pageSize: {}", page, pageSize);
-        LeaderboardResponse leaderboard = leaderboardService.getTotalGhostsLeaderboard(page, pageSize);
-        return ResponseEntity.ok(leaderboard);
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "all-time") String window) {
+        log.debug("Fetching total ghosts leaderboard - window: {}, page: {}, pageSize: {}, cursor: {}",
+                window, page, pageSize, cursor);
+        return toResponse(getPage(LeaderboardCategory.TOTAL_GHOSTS, window, page, pageSize, cursor));
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLeaderboard(
+            @AuthenticationPrincipal AuthenticatedUser principal,
+            @RequestParam(defaultValue = "high-score") String category,
+            @RequestParam(defaultValue = "1") int fromRank,
+            @RequestParam(defaultValue = "10") int toRank) {
+        return leaderboardStreamService.subscribe(
+                principal.getId(), LeaderboardCategory.fromSlug(category), fromRank, toRank);
+    }
+
+    @GetMapping("/{category}/me")
+    public ResponseEntity<PlayerRankResponse> getMyRank(
+            @AuthenticationPrincipal AuthenticatedUser principal,
+            @PathVariable String category,
+            @RequestParam(defaultValue = "5") int radius,
+            @RequestParam(defaultValue = "all-time") String window) {
+        PlayerRankResponse rank = leaderboardService.getPlayerRank(
+                LeaderboardCategory.fromSlug(category), LeaderboardWindow.fromSlug(window), principal.getId(), radius);
+        return ResponseEntity.ok(rank);
+    }
+
+    // A cursor, when given, takes precedence over the page number
+    private LeaderboardSnapshotCache.Snapshot getPage(LeaderboardCategory category, String window,
+                                                      int page, int pageSize, String cursor) {
+        LeaderboardWindow leaderboardWindow = LeaderboardWindow.fromSlug(window);
+        if (StringUtils.hasText(cursor)) {
+            return snapshotCache.getLeaderboardAfter(category, leaderboardWindow, cursor, pageSize);
+        }
+        return snapshotCache.getLeaderboard(category, leaderboardWindow, page, pageSize);
+    }
+
+    // Spring answers If-None-Match with 304 Not Modified when the ETag matches
+    private ResponseEntity<byte[]> toResponse(LeaderboardSnapshotCache.Snapshot snapshot) {
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.body());
     }
 }
@@ -1,27 +1,31 @@
 package com.dcisman.controller;
 
+import com.dcisman.dto.StatsDistributionResponse;
+import com.dcisman.dto.StatsPercentileResponse;
 import com.dcisman.dto.UserStatsResponse;
-import com.dcisman.entity.User;
-import com.dcisman.service.AuthService;
+import com.dcisman.security.AuthenticatedUser;
+import com.dcisman.service.LeaderboardCategory;
+import com.dcisman.service.StatsDistributionService;
 import com.dcisman.service.UserStatsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/stats")
 @RequiredArgsConstructor
 public class StatsController {
 
     private final UserStatsService userStatsService;
-    private final AuthService authService;
+    private final StatsDistributionService statsDistributionService;
 
     @GetMapping("/me")
-    public ResponseEntity<UserStatsResponse> getMyStats() {
-        User user = getCurrentUser();
-        UserStatsResponse stats = userStatsService.getCurrentUserStats(user);
+    public ResponseEntity<UserStatsResponse> getMyStats(
+            @AuthenticationPrincipal AuthenticatedUser principal) {
+        UserStatsResponse stats = userStatsService.getCurrentUserStats(principal.getId());
         return ResponseEntity.ok(stats);
     }
 
@@ -32,9 +36,23 @@ public class StatsController {
         return ResponseEntity.ok(stats);
     }
 
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return authService.getCurrentUser(username);
+    @GetMapping("/distribution/{category}")
+    public ResponseEntity<StatsDistributionResponse> getDistribution(
+            @PathVariable String category,
+            @RequestParam(defaultValue = "20") int buckets,
+            @RequestParam(required = false) List<Double> percentiles) {
+        StatsDistributionResponse distribution = statsDistributionService.getDistribution(
+                LeaderboardCategory.fromSlug(category), buckets, percentiles);
+        return ResponseEntity.ok(distribution);
+    }
+
+    @GetMapping("/percentile/{category}")
+    public ResponseEntity<StatsPercentileResponse> getPercentile(
+            @AuthenticationPrincipal AuthenticatedUser principal,
+            @PathVariable String category,
+            @RequestParam int value) {
+        StatsPercentileResponse percentile = statsDistributionService.getPercentile(
+                LeaderboardCategory.fromSlug(category), value, principal.getId());
+        return ResponseEntity.ok(percentile);
     }
 }
@@ -0,0 +1,19 @@
+package com.dcisman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GameSessionHistoryResponse {
+
+    private List<GameSessionResponse> sessions;
+    private Integer pageSize;
+    private String nextCursor; // null on the last page
+}
@@ -1,5 +1,6 @@
 package com.dcisman.dto;
 
+import com.dcisman.entity.GameSession;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -23,4 +24,13 @@ public class GameSessionResponse {
     private String status;
     private LocalDateTime startedAt;
     private LocalDateTime endedAt;
+    private Double scorePercentile; // only on end: share of other players whose best score is lower
+
+    // Constructor expression for the history projection in GameSessionRepository
+    public GameSessionResponse(Long id, Long userId, String username, Integer score, Integer levelReached,
+                               Integer durationSeconds, Integer ghostsEaten, Integer powerUpsUsed,
+                               GameSession.Status status, LocalDateTime startedAt, LocalDateTime endedAt) {
+        this(id, userId, username, score, levelReached, durationSeconds, ghostsEaten, powerUpsUsed,
+                status.name(), startedAt, endedAt, null);
+    }
 }
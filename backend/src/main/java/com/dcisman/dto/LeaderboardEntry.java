@@ -17,4 +17,9 @@ public class LeaderboardEntry {
     private String idNumber;
     private Integer value;
     private Integer rank;
+
+    // Constructor expression for the leaderboard projections in UserStatsRepository; the rank is set afterwards
+    public LeaderboardEntry(Long userId, String username, String name, String idNumber, Integer value) {
+        this(userId, username, name, idNumber, value, null);
+    }
 }
@@ -15,10 +15,12 @@ import java.util.List;
 public class LeaderboardResponse {
 
     private String category;
+    private String window;
     private List<LeaderboardEntry> entries;
     private LocalDateTime lastUpdated;
     private Integer totalPlayers;
     private Integer currentPage;
     private Integer totalPages;
     private Integer pageSize;
+    private String nextCursor; // null on the last page
 }
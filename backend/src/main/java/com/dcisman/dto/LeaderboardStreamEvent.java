@@ -0,0 +1,22 @@
+package com.dcisman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LeaderboardStreamEvent {
+
+    private String category;
+    private Integer fromRank;
+    private Integer toRank;
+    private Integer size; // number of entries now in the window
+    private Integer totalPlayers;
+    private List<LeaderboardEntry> entries; // full window for "snapshot", changed ranks only for "diff"
+}
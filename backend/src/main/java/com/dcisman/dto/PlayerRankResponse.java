@@ -0,0 +1,25 @@
+package com.dcisman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PlayerRankResponse {
+
+    private String category;
+    private String window;
+    private Long userId;
+    private Integer rank; // null when the player has no stats yet
+    private Integer value;
+    private Integer totalPlayers;
+    private List<LeaderboardEntry> entries;
+    private LocalDateTime lastUpdated;
+}
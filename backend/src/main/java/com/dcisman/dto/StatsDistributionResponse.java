@@ -0,0 +1,32 @@
+package com.dcisman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatsDistributionResponse {
+
+    private String category;
+    private Long totalPlayers;
+    private List<Bucket> buckets;
+    private Map<String, Integer> percentiles; // e.g. "p90" -> value
+    private LocalDateTime lastUpdated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+        private Integer from; // inclusive
+        private Integer to; // inclusive
+        private Long count;
+    }
+}
@@ -0,0 +1,19 @@
+package com.dcisman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatsPercentileResponse {
+
+    private String category;
+    private Integer value;
+    private Long totalPlayers;
+    private Long playersBelow;
+    private Double percentile; // share of players below the value, 0 to 100
+}
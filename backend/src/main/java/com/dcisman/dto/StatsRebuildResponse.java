@@ -0,0 +1,49 @@
+package com.dcisman.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatsRebuildResponse {
+
+    private String status; // RUNNING, COMPLETED or FAILED
+    private Boolean dryRun;
+    private Integer totalRanges;
+    private Integer completedRanges;
+    private Long usersChecked;
+    private Long usersDiffering;
+    private Long usersCorrected;
+    private Long usersOverflowing; // recomputed total does not fit a stats column, left untouched
+    private Long sessionsScanned;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Long elapsedMillis;
+    private String error;
+    private List<UserDiff> diffs; // first few differing users only
+    private List<Long> overflowingUserIds; // first few overflowing users only
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UserDiff {
+        private Long userId;
+        private List<FieldDiff> fields;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FieldDiff {
+        private String field;
+        private Integer expected;
+        private Integer actual;
+    }
+}
@@ -7,7 +7,11 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "game_sessions")
+@Table(name = "game_sessions", indexes = {
+    @Index(name = "idx_user_started", columnList = "user_id, started_at, id"),
+    @Index(name = "idx_stats_pending", columnList = "stats_applied, id"),
+    @Index(name = "idx_ended_at", columnList = "ended_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -54,6 +58,11 @@ public class GameSession {
     @Column(name = "ended_at")
     private LocalDateTime endedAt;
 
+    // Set in the same transaction that adds this session to user_stats, so it is counted exactly once
+    @Column(name = "stats_applied", nullable = false)
+    @Builder.Default
+    private Boolean statsApplied = false;
+
     public enum Status {
         IN_PROGRESS, COMPLETED, ABANDONED
     }
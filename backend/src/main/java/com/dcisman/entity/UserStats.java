@@ -11,7 +11,11 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "user_stats")
+@Table(name = "user_stats", indexes = {
+    @Index(name = "idx_highest_score_user", columnList = "highest_score DESC, user_id"),
+    @Index(name = "idx_highest_level_user", columnList = "highest_level_reached DESC, user_id"),
+    @Index(name = "idx_total_ghosts_user", columnList = "total_ghosts_eaten DESC, user_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
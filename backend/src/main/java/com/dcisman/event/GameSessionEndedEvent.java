@@ -0,0 +1,48 @@
+package com.dcisman.event;
+
+import com.dcisman.entity.GameSession;
+
+import java.time.LocalDateTime;
+
+/**
+ * A session that has just been completed or abandoned, carrying everything the
+ * stats projection needs so it never has to reload the session.
+ */
+public record GameSessionEndedEvent(
+        Long sessionId,
+        Long userId,
+        int score,
+        int levelReached,
+        int durationSeconds,
+        int ghostsEaten,
+        int powerUpsUsed,
+        boolean completed,
+        LocalDateTime endedAt
+) {
+
+    // Constructor expression for the recovery sweep in GameSessionRepository
+    public GameSessionEndedEvent(Long sessionId, Long userId, Integer score, Integer levelReached,
+                                 Integer durationSeconds, Integer ghostsEaten, Integer powerUpsUsed,
+                                 GameSession.Status status, LocalDateTime endedAt) {
+        this(sessionId, userId, valueOrZero(score), valueOrZero(levelReached), valueOrZero(durationSeconds),
+                valueOrZero(ghostsEaten), valueOrZero(powerUpsUsed), status == GameSession.Status.COMPLETED, endedAt);
+    }
+
+    public static GameSessionEndedEvent of(GameSession session) {
+        return new GameSessionEndedEvent(
+                session.getId(),
+                session.getUser().getId(),
+                session.getScore(),
+                session.getLevelReached(),
+                session.getDurationSeconds(),
+                session.getGhostsEaten(),
+                session.getPowerUpsUsed(),
+                session.getStatus(),
+                session.getEndedAt()
+        );
+    }
+
+    private static int valueOrZero(Integer value) {
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,4 @@
+package com.dcisman.event;
+
+public record UserAccountStatusChangedEvent(Long userId, boolean active) {
+}
@@ -0,0 +1,4 @@
+package com.dcisman.event;
+
+public record UserProfileUpdatedEvent(Long userId, String username, String name, String idNumber) {
+}
@@ -0,0 +1,35 @@
+package com.dcisman.event;
+
+import com.dcisman.entity.User;
+import com.dcisman.entity.UserStats;
+
+public record UserStatsUpdatedEvent(
+        Long userId,
+        String username,
+        String name,
+        String idNumber,
+        int highestScore,
+        int highestLevelReached,
+        int totalGhostsEaten,
+        int longestTimePlayed,
+        int totalPowerUpsUsed,
+        int totalGamesPlayed,
+        int totalGamesCompleted
+) {
+
+    public static UserStatsUpdatedEvent of(User user, UserStats stats) {
+        return new UserStatsUpdatedEvent(
+                user.getId(),
+                user.getUsername(),
+                user.getName(),
+                user.getIdNumber(),
+                stats.getHighestScore(),
+                stats.getHighestLevelReached(),
+                stats.getTotalGhostsEaten(),
+                stats.getLongestTimePlayed(),
+                stats.getTotalPowerUpsUsed(),
+                stats.getTotalGamesPlayed(),
+                stats.getTotalGamesCompleted()
+        );
+    }
+}
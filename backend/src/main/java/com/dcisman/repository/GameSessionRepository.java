@@ -1,20 +1,74 @@
 package com.dcisman.repository;
 
+import com.dcisman.dto.GameSessionResponse;
 import com.dcisman.entity.GameSession;
+import com.dcisman.event.GameSessionEndedEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface GameSessionRepository extends JpaRepository<GameSession, Long> {
 
-    List<GameSession> findByUserIdOrderByStartedAtDesc(Long userId);
+    // The user is fetched with the session because every response carries the username
 
+    @EntityGraph(attributePaths = "user")
     Optional<GameSession> findByIdAndUserId(Long id, Long userId);
 
     List<GameSession> findByUserIdAndStatus(Long userId, GameSession.Status status);
 
+    @EntityGraph(attributePaths = "user")
     Optional<GameSession> findFirstByUserIdAndStatusOrderByStartedAtDesc(Long userId, GameSession.Status status);
+
+    // History pages seek on (started_at, id) DESC over idx_user_started and project straight into DTOs
+
+    @Query("SELECT new com.dcisman.dto.GameSessionResponse(gs.id, u.id, u.username, gs.score, gs.levelReached, " +
+           "gs.durationSeconds, gs.ghostsEaten, gs.powerUpsUsed, gs.status, gs.startedAt, gs.endedAt) " +
+           "FROM GameSession gs JOIN gs.user u " +
+           "WHERE gs.user.id = :userId AND gs.status IN :statuses " +
+           "ORDER BY gs.startedAt DESC, gs.id DESC")
+    List<GameSessionResponse> findHistory(
+            @Param("userId") Long userId,
+            @Param("statuses") Collection<GameSession.Status> statuses,
+            Pageable pageable);
+
+    @Query("SELECT new com.dcisman.dto.GameSessionResponse(gs.id, u.id, u.username, gs.score, gs.levelReached, " +
+           "gs.durationSeconds, gs.ghostsEaten, gs.powerUpsUsed, gs.status, gs.startedAt, gs.endedAt) " +
+           "FROM GameSession gs JOIN gs.user u " +
+           "WHERE gs.user.id = :userId AND gs.status IN :statuses " +
+           "AND (gs.startedAt < :startedAt OR (gs.startedAt = :startedAt AND gs.id < :id)) " +
+           "ORDER BY gs.startedAt DESC, gs.id DESC")
+    List<GameSessionResponse> findHistoryBefore(
+            @Param("userId") Long userId,
+            @Param("statuses") Collection<GameSession.Status> statuses,
+            @Param("startedAt") LocalDateTime startedAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    // Stats projection: ended sessions whose stats_applied flag is still false have not been counted yet
+
+    @Query("SELECT new com.dcisman.event.GameSessionEndedEvent(gs.id, gs.user.id, gs.score, gs.levelReached, " +
+           "gs.durationSeconds, gs.ghostsEaten, gs.powerUpsUsed, gs.status, gs.endedAt) " +
+           "FROM GameSession gs WHERE gs.statsApplied = false AND gs.status <> :inProgress ORDER BY gs.id")
+    List<GameSessionEndedEvent> findUnappliedEndedSessions(
+            @Param("inProgress") GameSession.Status inProgress,
+            Pageable pageable);
+
+    // Locking read: a concurrent batch holding the same ids waits here, then sees them applied
+    @Query(value = "SELECT id FROM game_sessions WHERE id IN (:ids) AND stats_applied = FALSE FOR UPDATE",
+           nativeQuery = true)
+    List<Long> lockUnappliedIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "UPDATE game_sessions SET stats_applied = TRUE WHERE id IN (:ids)", nativeQuery = true)
+    int markStatsApplied(@Param("ids") Collection<Long> ids);
 }
@@ -1,11 +1,17 @@
 package com.dcisman.repository;
 
+import com.dcisman.dto.LeaderboardEntry;
+import com.dcisman.dto.UserStatsResponse;
 import com.dcisman.entity.UserStats;
+import com.dcisman.event.UserStatsUpdatedEvent;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,12 +22,99 @@ public interface UserStatsRepository extends JpaRepository<UserStats, Long> {
 
     boolean existsByUserId(Long userId);
 
-    @Query("SELECT us FROM UserStats us JOIN FETCH us.user ORDER BY us.highestScore DESC")
-    List<UserStats> findTopByHighestScore(Pageable pageable);
+    @Query("SELECT new com.dcisman.dto.UserStatsResponse(us.id, us.user.id, us.highestScore, us.totalGhostsEaten, " +
+            "us.longestTimePlayed, us.totalPowerUpsUsed, us.highestLevelReached, us.totalGamesPlayed, " +
+            "us.totalGamesCompleted, us.createdAt, us.updatedAt) " +
+            "FROM UserStats us WHERE us.user.id = :userId")
+    Optional<UserStatsResponse> findResponseByUserId(@Param("userId") Long userId);
 
-    @Query("SELECT us FROM UserStats us JOIN FETCH us.user ORDER BY us.highestLevelReached DESC")
-    List<UserStats> findTopByHighestLevel(Pageable pageable);
+    /**
+     * Folds a batch of finished sessions for one player into their stats in a
+     * single statement, creating the row on the player's first game. MySQL
+     * applies it atomically, so concurrent batches never lose an update.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_stats (user_id, highest_score, total_ghosts_eaten, longest_time_played, " +
+            "total_power_ups_used, highest_level_reached, total_games_played, total_games_completed, created_at, updated_at) " +
+            "VALUES (:userId, :score, :ghostsEaten, :durationSeconds, :powerUpsUsed, :levelReached, :games, :completed, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "highest_score = GREATEST(highest_score, :score), " +
+            "total_ghosts_eaten = total_ghosts_eaten + :ghostsEaten, " +
+            "longest_time_played = GREATEST(longest_time_played, :durationSeconds), " +
+            "total_power_ups_used = total_power_ups_used + :powerUpsUsed, " +
+            "highest_level_reached = GREATEST(highest_level_reached, :levelReached), " +
+            "total_games_played = total_games_played + :games, " +
+            "total_games_completed = total_games_completed + :completed, " +
+            "updated_at = NOW()",
+            nativeQuery = true)
+    int applyGameSessions(@Param("userId") Long userId,
+                          @Param("score") int score,
+                          @Param("ghostsEaten") int ghostsEaten,
+                          @Param("durationSeconds") int durationSeconds,
+                          @Param("powerUpsUsed") int powerUpsUsed,
+                          @Param("levelReached") int levelReached,
+                          @Param("games") int games,
+                          @Param("completed") int completed);
 
-    @Query("SELECT us FROM UserStats us JOIN FETCH us.user ORDER BY us.totalGhostsEaten DESC")
-    List<UserStats> findTopByTotalGhostsEaten(Pageable pageable);
+    // A scalar projection always reads the row from the database, never a stale managed entity
+    @Query("SELECT new com.dcisman.event.UserStatsUpdatedEvent(u.id, u.username, u.name, u.idNumber, " +
+            "us.highestScore, us.highestLevelReached, us.totalGhostsEaten, us.longestTimePlayed, " +
+            "us.totalPowerUpsUsed, us.totalGamesPlayed, us.totalGamesCompleted) " +
+            "FROM UserStats us JOIN us.user u WHERE u.id IN :userIds")
+    List<UserStatsUpdatedEvent> findUpdatedEventsByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT new com.dcisman.event.UserStatsUpdatedEvent(u.id, u.username, u.name, u.idNumber, " +
+            "us.highestScore, us.highestLevelReached, us.totalGhostsEaten, us.longestTimePlayed, " +
+            "us.totalPowerUpsUsed, us.totalGamesPlayed, us.totalGamesCompleted) " +
+            "FROM UserStats us JOIN us.user u")
+    List<UserStatsUpdatedEvent> findAllUpdatedEvents();
+
+    // Leaderboard reads order by (value DESC, user id ASC) so ties have a stable order.
+    // The *After queries double as keyset pagination: pass the last key of the previous page.
+    // Rows are projected straight into unranked entries, so no UserStats or User is hydrated.
+
+    @Query("SELECT new com.dcisman.dto.LeaderboardEntry(u.id, u.username, u.name, u.idNumber, us.highestScore) " +
+            "FROM UserStats us JOIN us.user u ORDER BY us.highestScore DESC, us.user.id ASC")
+    List<LeaderboardEntry> findTopByHighestScore(Pageable pageable);
+
+    @Query("SELECT new com.dcisman.dto.LeaderboardEntry(u.id, u.username, u.name, u.idNumber, us.highestLevelReached) " +
+            "FROM UserStats us JOIN us.user u ORDER BY us.highestLevelReached DESC, us.user.id ASC")
+    List<LeaderboardEntry> findTopByHighestLevel(Pageable pageable);
+
+    @Query("SELECT new com.dcisman.dto.LeaderboardEntry(u.id, u.username, u.name, u.idNumber, us.totalGhostsEaten) " +
+            "FROM UserStats us JOIN us.user u ORDER BY us.totalGhostsEaten DESC, us.user.id ASC")
+    List<LeaderboardEntry> findTopByTotalGhostsEaten(Pageable pageable);
+
+    @Query("SELECT COUNT(us) FROM UserStats us WHERE us.highestScore > :value OR (us.highestScore = :value AND us.user.id < :userId)")
+    long countAheadByHighestScore(@Param("value") int value, @Param("userId") Long userId);
+
+    @Query("SELECT new com.dcisman.dto.LeaderboardEntry(u.id, u.username, u.name, u.idNumber, us.highestScore) " +
+            "FROM UserStats us JOIN us.user u WHERE us.highestScore > :value OR (us.highestScore = :value AND us.user.id < :userId) ORDER BY us.highestScore ASC, us.user.id DESC")
+    List<LeaderboardEntry> findHighestScoreBefore(@Param("value") int value, @Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT new com.dcisman.dto.LeaderboardEntry(u.id, u.username, u.name, u.idNumber, us.highestScore) " +
+            "FROM UserStats us JOIN us.user u WHERE us.highestScore < :value OR (us.highestScore = :value AND us.user.id > :userId) ORDER BY us.highestScore DESC, us.user.id ASC")
+    List<LeaderboardEntry> findHighestScoreAfter(@Param("value") int value, @Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT COUNT(us) FROM UserStats us WHERE us.highestLevelReached > :value OR (us.highestLevelReached = :value AND us.user.id < :userId)")
+    long countAheadByHighestLevel(@Param("value") int value, @Param("userId") Long userId);
+
+    @Query("SELECT new com.dcisman.dto.LeaderboardEntry(u.id, u.username, u.name, u.idNumber, us.highestLevelReached) " +
+            "FROM UserStats us JOIN us.user u WHERE us.highestLevelReached > :value OR (us.highestLevelReached = :value AND us.user.id < :userId) ORDER BY us.highestLevelReached ASC, us.user.id DESC")
+    List<LeaderboardEntry> findHighestLevelBefore(@Param("value") int value, @Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT new com.dcisman.dto.LeaderboardEntry(u.id, u.username, u.name, u.idNumber, us.highestLevelReached) " +
+            "FROM UserStats us JOIN us.user u WHERE us.highestLevelReached < :value OR (us.highestLevelReached = :value AND us.user.id > :userId) ORDER BY us.highestLevelReached DESC, us.user.id ASC")
+    List<LeaderboardEntry> findHighestLevelAfter(@Param("value") int value, @Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT COUNT(us) FROM UserStats us WHERE us.totalGhostsEaten > :value OR (us.totalGhostsEaten = :value AND us.user.id < :userId)")
+    long countAheadByTotalGhostsEaten(@Param("value") int value, @Param("userId") Long userId);
+
+    @Query("SELECT new com.dcisman.dto.LeaderboardEntry(u.id, u.username, u.name, u.idNumber, us.totalGhostsEaten) " +
+            "FROM UserStats us JOIN us.user u WHERE us.totalGhostsEaten > :value OR (us.totalGhostsEaten = :value AND us.user.id < :userId) ORDER BY us.totalGhostsEaten ASC, us.user.id DESC")
+    List<LeaderboardEntry> findTotalGhostsEatenBefore(@Param("value") int value, @Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT new com.dcisman.dto.LeaderboardEntry(u.id, u.username, u.name, u.idNumber, us.totalGhostsEaten) " +
+            "FROM UserStats us JOIN us.user u WHERE us.totalGhostsEaten < :value OR (us.totalGhostsEaten = :value AND us.user.id > :userId) ORDER BY us.totalGhostsEaten DESC, us.user.id ASC")
+    List<LeaderboardEntry> findTotalGhostsEatenAfter(@Param("value") int value, @Param("userId") Long userId, Pageable pageable);
 }
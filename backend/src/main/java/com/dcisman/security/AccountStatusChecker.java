@@ -0,0 +1,51 @@
+package com.dcisman.security;
+
+import com.dcisman.event.UserAccountStatusChangedEvent;
+import com.dcisman.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Low-frequency check that a token's user is still active. Principals built
+ * from token claims skip the user lookup, so without this a deactivated
+ * account would keep working until its token expires. Each user is looked up
+ * at most once per TTL.
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountStatusChecker {
+
+    private final UserRepository userRepository;
+
+    @Value("${security.principal.active-check-enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.principal.active-check-ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private LoadingCache<Long, Boolean> activeByUserId;
+
+    @PostConstruct
+    public void init() {
+        activeByUserId = Caffeine.newBuilder()
+                .maximumSize(50_000)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build(userId -> userRepository.findIsActiveById(userId).orElse(false));
+    }
+
+    public boolean isActive(Long userId) {
+        return !enabled || activeByUserId.get(userId);
+    }
+
+    @TransactionalEventListener
+    public void onAccountStatusChanged(UserAccountStatusChangedEvent event) {
+        activeByUserId.invalidate(event.userId());
+    }
+}
@@ -0,0 +1,78 @@
+package com.dcisman.security;
+
+import com.dcisman.service.UserCache;
+import io.jsonwebtoken.Claims;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Principal placed in the security context for every authenticated request.
+ * Carries the user id so controllers never have to look the user up again.
+ */
+@Getter
+public class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String username;
+    private final String role;
+    private final String password; // null when built from token claims
+    private final boolean active;
+
+    public AuthenticatedUser(Long id, String username, String role, String password, boolean active) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
+        this.password = password;
+        this.active = active;
+    }
+
+    public static AuthenticatedUser fromClaims(Claims claims) {
+        return new AuthenticatedUser(
+                claims.get(JwtUtil.CLAIM_USER_ID, Long.class),
+                claims.getSubject(),
+                claims.get(JwtUtil.CLAIM_ROLE, String.class),
+                null,
+                true
+        );
+    }
+
+    public static AuthenticatedUser fromUser(UserCache.CachedUser user) {
+        return new AuthenticatedUser(
+                user.id(),
+                user.username(),
+                user.role().name(),
+                user.passwordHash(),
+                user.active()
+        );
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return active;
+    }
+}
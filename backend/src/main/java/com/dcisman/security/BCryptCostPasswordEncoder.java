@@ -0,0 +1,147 @@
+package com.dcisman.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes with one BCrypt cost and verifies with whichever cost a stored hash
+ * was made with. Hashes are routed by their {@code $2a$NN$} prefix to a
+ * BCrypt encoder for that version and cost. A hash of another version, or
+ * whose cost is more than {@code rehashTolerance} away from the current one,
+ * reports {@link #upgradeEncoding}, so logins move stored hashes towards the
+ * current cost in either direction without flapping when calibration picks a
+ * neighbouring cost on another instance or after a restart. A prefix that is
+ * not BCrypt never matches.
+ */
+@Slf4j
+public class BCryptCostPasswordEncoder implements PasswordEncoder {
+
+    private static final String PROBE_PASSWORD = "calibration-probe";
+    private static final int PROBE_COST = 8;
+
+    private final int cost;
+    private final int rehashTolerance;
+    private final String prefix;
+    private final BCryptPasswordEncoder current;
+    private final Map<String, BCryptPasswordEncoder> byPrefix = new ConcurrentHashMap<>();
+
+    public BCryptCostPasswordEncoder(int cost) {
+        this(cost, 0);
+    }
+
+    public BCryptCostPasswordEncoder(int cost, int rehashTolerance) {
+        if (rehashTolerance < 0) {
+            throw new IllegalArgumentException("Rehash tolerance must not be negative, got " + rehashTolerance);
+        }
+        this.cost = cost;
+        this.rehashTolerance = rehashTolerance;
+        this.current = new BCryptPasswordEncoder(BCryptPasswordEncoder.BCryptVersion.$2A, cost);
+        this.prefix = prefixOf(current.encode(PROBE_PASSWORD));
+        byPrefix.put(prefix, current);
+    }
+
+    /**
+     * Picks the highest cost within {@code [minCost, maxCost]} whose hash takes
+     * at most {@code targetMillis} on this machine. Each cost step doubles the
+     * work, so the time at a cheap probe cost is scaled up and the pick is then
+     * checked with one real hash.
+     */
+    public static BCryptCostPasswordEncoder calibrated(long targetMillis, int minCost, int maxCost,
+                                                       int rehashTolerance) {
+        if (minCost < 4 || maxCost > 31 || minCost > maxCost) {
+            throw new IllegalArgumentException("BCrypt cost range must lie within 4-31, got " + minCost + "-" + maxCost);
+        }
+
+        // The first hashes run before the JIT has compiled BCrypt, so only the fastest probe counts
+        long probeNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 8; i++) {
+            probeNanos = Math.min(probeNanos, timeHash(PROBE_COST));
+        }
+
+        int cost = minCost;
+        while (cost < maxCost && probeNanos * Math.pow(2, cost + 1 - PROBE_COST) <= targetMillis * 1_000_000) {
+            cost++;
+        }
+        long hashNanos = timeHash(cost);
+        if (hashNanos > targetMillis * 1_000_000 && cost > minCost) {
+            cost--;
+            hashNanos = timeHash(cost);
+        }
+
+        log.info("Password hashing uses BCrypt cost {} ({} ms per hash, target {} ms, allowed {}-{}); "
+                        + "set password-hashing.cost={} to keep it across restarts and instances",
+                cost, hashNanos / 1_000_000, targetMillis, minCost, maxCost, cost);
+        return new BCryptCostPasswordEncoder(cost, rehashTolerance);
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return current.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        BCryptPasswordEncoder encoder = encoderFor(encodedPassword);
+        return encoder != null && encoder.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        String hashPrefix = prefixOf(encodedPassword);
+        if (hashPrefix == null || !hashPrefix.startsWith(prefix.substring(0, 4))) {
+            return true;
+        }
+        return Math.abs(costOf(hashPrefix) - cost) > rehashTolerance;
+    }
+
+    private BCryptPasswordEncoder encoderFor(String encodedPassword) {
+        String hashPrefix = prefixOf(encodedPassword);
+        if (hashPrefix == null) {
+            log.warn("Stored password hash is not a BCrypt hash");
+            return null;
+        }
+        return byPrefix.computeIfAbsent(hashPrefix, key -> new BCryptPasswordEncoder(versionOf(key), costOf(key)));
+    }
+
+    private static int costOf(String hashPrefix) {
+        return Integer.parseInt(hashPrefix.substring(4, 6));
+    }
+
+    // "$2a$10$" for a cost-10 hash of version 2a, or null if the hash is not BCrypt
+    private static String prefixOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7
+                || encodedPassword.charAt(0) != '$' || encodedPassword.charAt(3) != '$'
+                || encodedPassword.charAt(6) != '$'
+                || !Character.isDigit(encodedPassword.charAt(4)) || !Character.isDigit(encodedPassword.charAt(5))) {
+            return null;
+        }
+        String hashPrefix = encodedPassword.substring(0, 7);
+        int hashCost = costOf(hashPrefix);
+        return versionOf(hashPrefix) != null && hashCost >= 4 && hashCost <= 31 ? hashPrefix : null;
+    }
+
+    private static BCryptPasswordEncoder.BCryptVersion versionOf(String hashPrefix) {
+        for (BCryptPasswordEncoder.BCryptVersion version : BCryptPasswordEncoder.BCryptVersion.values()) {
+            if (hashPrefix.startsWith(version.getVersion())) {
+                return version;
+            }
+        }
+        return null;
+    }
+
+    private static long timeHash(int cost) {
+        String salt = BCrypt.gensalt(cost);
+        long start = System.nanoTime();
+        BCrypt.hashpw(PROBE_PASSWORD, salt);
+        return System.nanoTime() - start;
+    }
+}
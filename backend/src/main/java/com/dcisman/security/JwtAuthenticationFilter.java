@@ -1,19 +1,24 @@
 package com.dcisman.security;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @RequiredArgsConstructor
@@ -21,6 +26,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final AccountStatusChecker accountStatusChecker;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${security.principal.stateless:true}")
+    private boolean statelessPrincipal;
+
+    private Timer authenticatedTimer;
+    private Timer rejectedTimer;
+
+    @PostConstruct
+    public void init() {
+        authenticatedTimer = timer("authenticated");
+        rejectedTimer = timer("rejected");
+    }
 
     @Override
     protected void doFilterInternal(
@@ -29,17 +48,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             FilterChain filterChain
     ) throws ServletException, IOException {
         try {
-            String jwt = getJwtFromRequest(request);
+            AuthenticatedUser principal = authenticate(getJwtFromRequest(request));
 
-            if (StringUtils.hasText(jwt) && jwtUtil.validateToken(jwt)) {
-                String username = jwtUtil.extractUsername(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            if (principal != null) {
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
-                                userDetails,
+                                principal,
                                 null,
-                                userDetails.getAuthorities()
+                                principal.getAuthorities()
                         );
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
@@ -52,6 +68,41 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Verifies a raw token and resolves the active principal it identifies, or
+     * returns {@code null}. Shared with the WebSocket handshake, which cannot
+     * send an Authorization header from the browser.
+     */
+    public AuthenticatedUser authenticate(String jwt) {
+        if (!StringUtils.hasText(jwt)) {
+            return null;
+        }
+        long start = System.nanoTime();
+        Claims claims = jwtUtil.verify(jwt);
+        AuthenticatedUser principal = claims != null ? resolvePrincipal(claims) : null;
+        boolean authenticated = principal != null && principal.isEnabled();
+        Timer timer = authenticated ? authenticatedTimer : rejectedTimer;
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return authenticated ? principal : null;
+    }
+
+    private AuthenticatedUser resolvePrincipal(Claims claims) {
+        if (statelessPrincipal && claims.get(JwtUtil.CLAIM_USER_ID) != null) {
+            AuthenticatedUser principal = AuthenticatedUser.fromClaims(claims);
+            return accountStatusChecker.isActive(principal.getId()) ? principal : null;
+        }
+
+        // Tokens issued before user ids were embedded still need the lookup
+        return (AuthenticatedUser) userDetailsService.loadUserByUsername(claims.getSubject());
+    }
+
+    private Timer timer(String outcome) {
+        return Timer.builder("dcisman.auth.token")
+                .description("Token verification and principal lookup per request")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -5,26 +5,36 @@ import com.dcisman.dto.LoginRequest;
 import com.dcisman.dto.RegisterRequest;
 import com.dcisman.dto.UpdateProfileRequest;
 import com.dcisman.entity.User;
+import com.dcisman.event.UserAccountStatusChangedEvent;
+import com.dcisman.event.UserProfileUpdatedEvent;
 import com.dcisman.exception.BadRequestException;
+import com.dcisman.exception.ResourceNotFoundException;
+import com.dcisman.exception.ServiceUnavailableException;
 import com.dcisman.repository.UserRepository;
 import com.dcisman.security.JwtUtil;
+import com.dcisman.security.PasswordHasher;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed("dcisman.service")
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtUtil jwtUtil;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserCache userCache;
 
-    @Transactional
+    // Not one transaction: a pooled connection would be held while the password waits for a
+    // hashing thread. The unique constraints still reject a username or email taken meanwhile.
     public AuthResponse register(RegisterRequest request) {
         log.info("Attempting to register user: {}", request.getUsername());
 
@@ -42,16 +52,17 @@ public class AuthService {
         User user = User.builder()
                 .username(request.getUsername())
                 .email(request.getEmail())
-                .passwordHash(passwordEncoder.encode(request.getPassword()))
+                .passwordHash(passwordHasher.encode(request.getPassword()))
                 .role(User.Role.USER)
                 .isActive(true)
                 .build();
 
         User savedUser = userRepository.save(user);
+        userCache.evict(savedUser);
         log.info("User registered successfully: {}", savedUser.getUsername());
 
         // Generate JWT token
-        String token = jwtUtil.generateToken(savedUser.getUsername());
+        String token = jwtUtil.generateToken(savedUser);
 
         return AuthResponse.builder()
                 .token(token)
@@ -79,14 +90,15 @@ public class AuthService {
         }
 
         // Verify password
-        if (!passwordEncoder.matches(request.getPassword(), user.getPasswordHash())) {
+        if (!passwordHasher.matches(request.getPassword(), user.getPasswordHash())) {
             throw new BadCredentialsException("Invalid username/email or password");
         }
+        rehashIfNeeded(user, request.getPassword());
 
         log.info("User logged in successfully: {}", user.getUsername());
 
         // Generate JWT token
-        String token = jwtUtil.generateToken(user.getUsername());
+        String token = jwtUtil.generateToken(user);
 
         return AuthResponse.builder()
                 .token(token)
@@ -100,8 +112,26 @@ public class AuthService {
                 .build();
     }
 
-    public User getCurrentUser(String username) {
-        return userRepository.findByUsername(username)
+    /**
+     * Moves a stored hash made at a BCrypt cost outside the rehash tolerance to
+     * the current one while the plain password is at hand. Skipped when the
+     * hashing queue is full; the next login tries again.
+     */
+    private void rehashIfNeeded(User user, String password) {
+        if (!passwordHasher.needsRehash(user.getPasswordHash())) {
+            return;
+        }
+        try {
+            userRepository.updatePasswordHash(user.getId(), passwordHasher.encode(password));
+            userCache.evict(user);
+            log.info("Rehashed password of user {} at the current cost", user.getUsername());
+        } catch (ServiceUnavailableException e) {
+            log.debug("Hashing queue full, kept the old password hash of user {}", user.getUsername());
+        }
+    }
+
+    public UserCache.CachedUser getCurrentUser(String username) {
+        return userCache.findByUsername(username)
                 .orElseThrow(() -> new BadRequestException("User not found: " + username));
     }
 
@@ -123,8 +153,23 @@ public class AuthService {
         }
 
         User updatedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserProfileUpdatedEvent(
+                updatedUser.getId(), updatedUser.getUsername(), updatedUser.getName(), updatedUser.getIdNumber()));
         log.info("Profile updated successfully for user: {}", username);
 
         return updatedUser;
     }
+
+    @Transactional
+    public User setUserActive(Long userId, boolean active) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+        user.setIsActive(active);
+        User updatedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserAccountStatusChangedEvent(userId, active));
+        log.info("User {} is now {}", updatedUser.getUsername(), active ? "active" : "inactive");
+
+        return updatedUser;
+    }
 }
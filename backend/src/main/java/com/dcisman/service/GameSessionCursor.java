@@ -0,0 +1,41 @@
+package com.dcisman.service;
+
+import com.dcisman.dto.GameSessionResponse;
+import com.dcisman.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque position in a player's game history: the (startedAt, id) key of the
+ * last session on the previous page. The id breaks ties between sessions that
+ * started in the same second.
+ */
+public record GameSessionCursor(LocalDateTime startedAt, long id) {
+
+    public static GameSessionCursor after(GameSessionResponse session) {
+        return new GameSessionCursor(session.getStartedAt(), session.getId());
+    }
+
+    public String encode() {
+        String raw = startedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static GameSessionCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new BadRequestException("Invalid game history cursor");
+            }
+            return new GameSessionCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid game history cursor");
+        }
+    }
+}
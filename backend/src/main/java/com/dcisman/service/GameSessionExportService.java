@@ -0,0 +1,207 @@
+package com.dcisman.service;
+
+import com.dcisman.exception.BadRequestException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Dumps every game session joined with its player. Rows are read from a
+ * forward-only MySQL streaming result set and written to the output one at a
+ * time, so memory use does not grow with the table and no entities are loaded.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GameSessionExportService {
+
+    private static final String EXPORT_SQL =
+        "SELECT gs.id, gs.user_id, u.username, u.name, u.id_number, gs.score, gs.level_reached, " +
+        "gs.duration_seconds, gs.ghosts_eaten, gs.power_ups_used, gs.status, gs.started_at, gs.ended_at " +
+        "FROM game_sessions gs JOIN users u ON u.id = gs.user_id ORDER BY gs.id";
+
+    private static final String[] COLUMNS = {
+        "id", "userId", "username", "name", "idNumber", "score", "levelReached",
+        "durationSeconds", "ghostsEaten", "powerUpsUsed", "status", "startedAt", "endedAt"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format fromString(String format) {
+            for (Format value : values()) {
+                if (value.name().equalsIgnoreCase(format)) {
+                    return value;
+                }
+            }
+            throw new BadRequestException("Unknown export format: " + format);
+        }
+    }
+
+    /**
+     * Writes all sessions to {@code out} and returns the number of rows written.
+     * The caller owns the stream and should not have written to it yet.
+     */
+    public long export(Format format, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        RowWriter writer = format == Format.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out);
+
+        try {
+            jdbcTemplate.query(connection -> StreamingStatements.prepare(connection, EXPORT_SQL), writer);
+            writer.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        log.info("Exported {} game sessions as {} in {} ms",
+            writer.rows, format, System.currentTimeMillis() - start);
+        return writer.rows;
+    }
+
+    private abstract static class RowWriter implements RowCallbackHandler {
+
+        long rows;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                write(rs);
+                rows++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        abstract void write(ResultSet rs) throws SQLException, IOException;
+
+        abstract void finish() throws IOException;
+    }
+
+    private final class NdjsonRowWriter extends RowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(OutputStream out) throws IOException {
+            generator = objectMapper.getFactory().createGenerator(out);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+        }
+
+        @Override
+        void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField(COLUMNS[0], rs.getLong(1));
+            generator.writeNumberField(COLUMNS[1], rs.getLong(2));
+            for (int i = 3; i <= 5; i++) {
+                generator.writeStringField(COLUMNS[i - 1], rs.getString(i));
+            }
+            for (int i = 6; i <= 10; i++) {
+                generator.writeNumberField(COLUMNS[i - 1], rs.getInt(i));
+            }
+            generator.writeStringField(COLUMNS[10], rs.getString(11));
+            generator.writeStringField(COLUMNS[11], timestamp(rs.getTimestamp(12)));
+            generator.writeStringField(COLUMNS[12], timestamp(rs.getTimestamp(13)));
+            generator.writeEndObject();
+        }
+
+        @Override
+        void finish() throws IOException {
+            if (rows > 0) {
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        }
+    }
+
+    private static final class CsvRowWriter extends RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream out) throws IOException {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        void write(ResultSet rs) throws SQLException, IOException {
+            writer.write(Long.toString(rs.getLong(1)));
+            writer.write(',');
+            writer.write(Long.toString(rs.getLong(2)));
+            for (int i = 3; i <= 5; i++) {
+                writer.write(',');
+                writeQuoted(rs.getString(i));
+            }
+            for (int i = 6; i <= 10; i++) {
+                writer.write(',');
+                writer.write(Integer.toString(rs.getInt(i)));
+            }
+            writer.write(',');
+            writeQuoted(rs.getString(11));
+            writer.write(',');
+            writeQuoted(timestamp(rs.getTimestamp(12)));
+            writer.write(',');
+            writeQuoted(timestamp(rs.getTimestamp(13)));
+            writer.write("\r\n");
+        }
+
+        @Override
+        void finish() throws IOException {
+            writer.flush();
+        }
+
+        // RFC 4180: quote only when needed, doubling embedded quotes
+        private void writeQuoted(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                    && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private static String timestamp(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime().toString();
+    }
+}
@@ -1,27 +1,51 @@
 package com.dcisman.service;
 
 import com.dcisman.dto.EndSessionRequest;
+import com.dcisman.dto.GameSessionHistoryResponse;
 import com.dcisman.dto.GameSessionResponse;
 import com.dcisman.dto.UpdateSessionRequest;
 import com.dcisman.entity.GameSession;
 import com.dcisman.entity.User;
+import com.dcisman.event.GameSessionEndedEvent;
+import com.dcisman.exception.BadRequestException;
 import com.dcisman.exception.ResourceNotFoundException;
 import com.dcisman.repository.GameSessionRepository;
 import com.dcisman.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
 @Service
 @RequiredArgsConstructor
+@Timed("dcisman.service")
 public class GameSessionService {
 
+  private static final int RECENT_SESSIONS_LIMIT = 50;
+  private static final int MAX_HISTORY_PAGE_SIZE = 100;
+  private static final Set<GameSession.Status> ALL_STATUSES = EnumSet.allOf(
+    GameSession.Status.class
+  );
+
   private final GameSessionRepository gameSessionRepository;
   private final UserRepository userRepository;
   private final UserStatsService userStatsService;
+  private final StatsProjectionService statsProjectionService;
+  private final HeartbeatBuffer heartbeatBuffer;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final StatsDistributionService statsDistributionService;
+  private final MeterRegistry meterRegistry;
 
   @Transactional
   public GameSessionResponse startSession(Long userId) {
@@ -35,9 +59,12 @@ public class GameSessionService {
         GameSession.Status.IN_PROGRESS
       )
       .ifPresent(existingSession -> {
+        heartbeatBuffer.overlay(existingSession);
         existingSession.setStatus(GameSession.Status.ABANDONED);
         existingSession.setEndedAt(LocalDateTime.now());
         gameSessionRepository.save(existingSession);
+        heartbeatBuffer.evict(existingSession.getId());
+        projectStats(existingSession);
       });
 
     GameSession session = GameSession.builder()
@@ -51,14 +78,40 @@ public class GameSessionService {
       .build();
 
     GameSession savedSession = gameSessionRepository.save(session);
+    heartbeatBuffer.track(savedSession);
+    meterRegistry.counter("dcisman.game_sessions.started").increment();
     return toResponse(savedSession);
   }
 
-  @Transactional
+  /**
+   * In write-behind mode a heartbeat for a session that is already buffered is
+   * answered from memory without opening a transaction; otherwise the session
+   * is loaded (and, in write-behind mode, buffered) inside one.
+   */
   public GameSessionResponse updateSession(
     Long sessionId,
     Long userId,
     UpdateSessionRequest request
+  ) {
+    if (heartbeatBuffer.isEnabled()) {
+      GameSessionResponse buffered = heartbeatBuffer.record(
+        sessionId,
+        userId,
+        request
+      );
+      if (buffered != null) {
+        return buffered;
+      }
+    }
+    return transactionTemplate.execute(status ->
+      updateSessionInTransaction(sessionId, userId, request)
+    );
+  }
+
+  private GameSessionResponse updateSessionInTransaction(
+    Long sessionId,
+    Long userId,
+    UpdateSessionRequest request
   ) {
     GameSession session = gameSessionRepository
       .findByIdAndUserId(sessionId, userId)
@@ -72,6 +125,18 @@ public class GameSessionService {
       );
     }
 
+    if (heartbeatBuffer.isEnabled()) {
+      heartbeatBuffer.track(session);
+      GameSessionResponse buffered = heartbeatBuffer.record(
+        sessionId,
+        userId,
+        request
+      );
+      if (buffered != null) {
+        return buffered;
+      }
+    }
+
     if (request.getScore() != null) {
       session.setScore(request.getScore());
     }
@@ -108,6 +173,8 @@ public class GameSessionService {
       throw new IllegalStateException("Session is already ended");
     }
 
+    heartbeatBuffer.overlay(session);
+
     if (request.getScore() != null) {
       session.setScore(request.getScore());
     }
@@ -133,17 +200,110 @@ public class GameSessionService {
 
     session.setEndedAt(LocalDateTime.now());
     GameSession endedSession = gameSessionRepository.save(session);
-    userStatsService.updateStatsFromGameSession(session.getUser(), endedSession);
-    return toResponse(endedSession);
+    heartbeatBuffer.evict(sessionId);
+
+    projectStats(endedSession);
+    GameSessionResponse response = toResponse(endedSession);
+    response.setScorePercentile(
+      statsDistributionService
+        .getPercentile(LeaderboardCategory.HIGH_SCORE, endedSession.getScore(), userId)
+        .getPercentile()
+    );
+    return response;
   }
 
+  /**
+   * Hands an ended session to the stats projection. In async mode the only
+   * write here is the session itself; its stats follow after commit.
+   */
+  private void projectStats(GameSession endedSession) {
+    meterRegistry
+      .counter(
+        "dcisman.game_sessions.ended",
+        "status",
+        endedSession.getStatus().name().toLowerCase()
+      )
+      .increment();
+    GameSessionEndedEvent ended = GameSessionEndedEvent.of(endedSession);
+    if (!statsProjectionService.isAsync()) {
+      userStatsService.applyEndedSessions(List.of(ended));
+    }
+    eventPublisher.publishEvent(ended);
+  }
+
+  /**
+   * The player's most recent sessions, capped at {@value #RECENT_SESSIONS_LIMIT}.
+   * Use {@link #getSessionHistory} to page further back.
+   */
   @Transactional(readOnly = true)
   public List<GameSessionResponse> getUserSessions(Long userId) {
-    return gameSessionRepository
-      .findByUserIdOrderByStartedAtDesc(userId)
-      .stream()
-      .map(this::toResponse)
-      .collect(Collectors.toList());
+    List<GameSessionResponse> sessions = gameSessionRepository.findHistory(
+      userId,
+      ALL_STATUSES,
+      PageRequest.of(0, RECENT_SESSIONS_LIMIT)
+    );
+    sessions.forEach(heartbeatBuffer::overlay);
+    return sessions;
+  }
+
+  @Transactional(readOnly = true)
+  public GameSessionHistoryResponse getSessionHistory(
+    Long userId,
+    List<String> statuses,
+    String cursor,
+    int pageSize
+  ) {
+    if (pageSize < 1 || pageSize > MAX_HISTORY_PAGE_SIZE) {
+      throw new BadRequestException(
+        "Page size must be between 1 and " + MAX_HISTORY_PAGE_SIZE
+      );
+    }
+
+    Set<GameSession.Status> statusFilter = parseStatuses(statuses);
+    Pageable pageable = PageRequest.of(0, pageSize);
+    List<GameSessionResponse> sessions;
+    if (StringUtils.hasText(cursor)) {
+      GameSessionCursor after = GameSessionCursor.decode(cursor);
+      sessions = gameSessionRepository.findHistoryBefore(
+        userId,
+        statusFilter,
+        after.startedAt(),
+        after.id(),
+        pageable
+      );
+    } else {
+      sessions = gameSessionRepository.findHistory(
+        userId,
+        statusFilter,
+        pageable
+      );
+    }
+    sessions.forEach(heartbeatBuffer::overlay);
+
+    String nextCursor = sessions.size() == pageSize
+      ? GameSessionCursor.after(sessions.get(sessions.size() - 1)).encode()
+      : null;
+
+    return GameSessionHistoryResponse.builder()
+      .sessions(sessions)
+      .pageSize(pageSize)
+      .nextCursor(nextCursor)
+      .build();
+  }
+
+  private Set<GameSession.Status> parseStatuses(List<String> statuses) {
+    if (statuses == null || statuses.isEmpty()) {
+      return ALL_STATUSES;
+    }
+    Set<GameSession.Status> parsed = EnumSet.noneOf(GameSession.Status.class);
+    for (String status : statuses) {
+      try {
+        parsed.add(GameSession.Status.valueOf(status.trim().toUpperCase()));
+      } catch (IllegalArgumentException e) {
+        throw new BadRequestException("Unknown game session status: " + status);
+      }
+    }
+    return parsed;
   }
 
   @Transactional(readOnly = true)
@@ -153,7 +313,7 @@ public class GameSessionService {
       .orElseThrow(() ->
         new ResourceNotFoundException("Game session not found")
       );
-    return toResponse(session);
+    return toBufferedResponse(session);
   }
 
   @Transactional(readOnly = true)
@@ -166,10 +326,16 @@ public class GameSessionService {
       .orElseThrow(() ->
         new ResourceNotFoundException("No active game session found")
       );
-    return toResponse(session);
+    return toBufferedResponse(session);
+  }
+
+  private GameSessionResponse toBufferedResponse(GameSession session) {
+    GameSessionResponse response = toResponse(session);
+    heartbeatBuffer.overlay(response);
+    return response;
   }
 
-  private GameSessionResponse toResponse(GameSession session) {
+  GameSessionResponse toResponse(GameSession session) {
     return GameSessionResponse.builder()
       .id(session.getId())
       .userId(session.getUser().getId())
@@ -0,0 +1,242 @@
+package com.dcisman.service;
+
+import com.dcisman.dto.GameSessionResponse;
+import com.dcisman.dto.UpdateSessionRequest;
+import com.dcisman.entity.GameSession;
+import com.dcisman.exception.ResourceNotFoundException;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write-behind buffer for in-game heartbeats. Keeps the latest values of each
+ * in-progress session in memory and periodically writes the changed ones to
+ * {@code game_sessions} in one JDBC batch, instead of a select and an update
+ * per heartbeat.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HeartbeatBuffer {
+
+  private static final String FLUSH_SQL =
+    "UPDATE game_sessions SET score = ?, level_reached = ?, duration_seconds = ?, " +
+    "ghosts_eaten = ?, power_ups_used = ? WHERE id = ? AND status = 'IN_PROGRESS'";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Value("${game-session.write-behind.enabled:false}")
+  private boolean enabled;
+
+  @Value("${game-session.write-behind.batch-size:500}")
+  private int batchSize;
+
+  @Value("${game-session.write-behind.idle-eviction-ms:600000}")
+  private long idleEvictionMillis;
+
+  private final Map<Long, BufferedSession> sessions = new ConcurrentHashMap<>();
+
+  private static final class BufferedSession {
+
+    final long id;
+    final long userId;
+    final String username;
+    final LocalDateTime startedAt;
+    int score;
+    int levelReached;
+    int durationSeconds;
+    int ghostsEaten;
+    int powerUpsUsed;
+    boolean dirty;
+    long lastTouched;
+
+    BufferedSession(GameSession session) {
+      this.id = session.getId();
+      this.userId = session.getUser().getId();
+      this.username = session.getUser().getUsername();
+      this.startedAt = session.getStartedAt();
+      this.score = session.getScore();
+      this.levelReached = session.getLevelReached();
+      this.durationSeconds = session.getDurationSeconds();
+      this.ghostsEaten = session.getGhostsEaten();
+      this.powerUpsUsed = session.getPowerUpsUsed();
+      this.lastTouched = System.currentTimeMillis();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public boolean isTracked(Long sessionId) {
+    return sessions.containsKey(sessionId);
+  }
+
+  /**
+   * Starts buffering heartbeats for an in-progress session.
+   */
+  public void track(GameSession session) {
+    if (enabled && session.getStatus() == GameSession.Status.IN_PROGRESS) {
+      sessions.putIfAbsent(session.getId(), new BufferedSession(session));
+    }
+  }
+
+  /**
+   * Applies a heartbeat to a tracked session. Returns {@code null} if the
+   * session is not buffered, in which case the caller must load it first.
+   */
+  public GameSessionResponse record(
+    Long sessionId,
+    Long userId,
+    UpdateSessionRequest request
+  ) {
+    BufferedSession buffered = sessions.get(sessionId);
+    if (buffered == null) {
+      return null;
+    }
+    if (buffered.userId != userId) {
+      throw new ResourceNotFoundException("Game session not found");
+    }
+
+    synchronized (buffered) {
+      if (request.getScore() != null) {
+        buffered.score = request.getScore();
+      }
+      if (request.getLevelReached() != null) {
+        buffered.levelReached = request.getLevelReached();
+      }
+      if (request.getDurationSeconds() != null) {
+        buffered.durationSeconds = request.getDurationSeconds();
+      }
+      if (request.getGhostsEaten() != null) {
+        buffered.ghostsEaten = request.getGhostsEaten();
+      }
+      if (request.getPowerUpsUsed() != null) {
+        buffered.powerUpsUsed = request.getPowerUpsUsed();
+      }
+      buffered.dirty = true;
+      buffered.lastTouched = System.currentTimeMillis();
+      return toResponse(buffered);
+    }
+  }
+
+  /**
+   * Copies any buffered values onto a session loaded from the database, so
+   * reads see the latest heartbeat even before it has been flushed.
+   */
+  public void overlay(GameSession session) {
+    BufferedSession buffered = sessions.get(session.getId());
+    if (buffered == null || session.getStatus() != GameSession.Status.IN_PROGRESS) {
+      return;
+    }
+    synchronized (buffered) {
+      session.setScore(buffered.score);
+      session.setLevelReached(buffered.levelReached);
+      session.setDurationSeconds(buffered.durationSeconds);
+      session.setGhostsEaten(buffered.ghostsEaten);
+      session.setPowerUpsUsed(buffered.powerUpsUsed);
+    }
+  }
+
+  public void overlay(GameSessionResponse response) {
+    BufferedSession buffered = sessions.get(response.getId());
+    if (buffered == null || !GameSession.Status.IN_PROGRESS.name().equals(response.getStatus())) {
+      return;
+    }
+    synchronized (buffered) {
+      response.setScore(buffered.score);
+      response.setLevelReached(buffered.levelReached);
+      response.setDurationSeconds(buffered.durationSeconds);
+      response.setGhostsEaten(buffered.ghostsEaten);
+      response.setPowerUpsUsed(buffered.powerUpsUsed);
+    }
+  }
+
+  /**
+   * Stops tracking a session that is being ended or abandoned. Callers overlay
+   * the buffered values onto the entity first, so nothing is lost.
+   */
+  public void evict(Long sessionId) {
+    sessions.remove(sessionId);
+  }
+
+  @Scheduled(fixedDelayString = "${game-session.write-behind.flush-interval-ms:5000}")
+  public void flush() {
+    if (!enabled || sessions.isEmpty()) {
+      return;
+    }
+
+    List<BufferedSession> flushed = new ArrayList<>();
+    List<Object[]> batch = new ArrayList<>();
+    long idleCutoff = System.currentTimeMillis() - idleEvictionMillis;
+
+    for (BufferedSession buffered : sessions.values()) {
+      synchronized (buffered) {
+        if (buffered.dirty) {
+          batch.add(new Object[] {
+            buffered.score,
+            buffered.levelReached,
+            buffered.durationSeconds,
+            buffered.ghostsEaten,
+            buffered.powerUpsUsed,
+            buffered.id,
+          });
+          buffered.dirty = false;
+          flushed.add(buffered);
+        } else if (buffered.lastTouched < idleCutoff) {
+          sessions.remove(buffered.id, buffered);
+        }
+      }
+    }
+
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    try {
+      for (int from = 0; from < batch.size(); from += batchSize) {
+        jdbcTemplate.batchUpdate(
+          FLUSH_SQL,
+          batch.subList(from, Math.min(from + batchSize, batch.size()))
+        );
+      }
+      log.debug("Flushed {} buffered game session heartbeats", batch.size());
+    } catch (Exception e) {
+      log.error("Failed to flush game session heartbeats: {}", e.getMessage());
+      for (BufferedSession buffered : flushed) {
+        synchronized (buffered) {
+          buffered.dirty = true;
+        }
+      }
+    }
+  }
+
+  @PreDestroy
+  public void flushOnShutdown() {
+    flush();
+  }
+
+  private GameSessionResponse toResponse(BufferedSession buffered) {
+    return GameSessionResponse.builder()
+      .id(buffered.id)
+      .userId(buffered.userId)
+      .username(buffered.username)
+      .score(buffered.score)
+      .levelReached(buffered.levelReached)
+      .durationSeconds(buffered.durationSeconds)
+      .ghostsEaten(buffered.ghostsEaten)
+      .powerUpsUsed(buffered.powerUpsUsed)
+      .status(GameSession.Status.IN_PROGRESS.name())
+      .startedAt(buffered.startedAt)
+      .build();
+  }
+}
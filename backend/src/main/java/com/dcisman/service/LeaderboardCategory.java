@@ -0,0 +1,65 @@
+package com.dcisman.service;
+
+import com.dcisman.entity.UserStats;
+import com.dcisman.event.GameSessionEndedEvent;
+import com.dcisman.event.UserStatsUpdatedEvent;
+import com.dcisman.exception.BadRequestException;
+
+import java.util.function.ToIntFunction;
+
+public enum LeaderboardCategory {
+    HIGH_SCORE("high-score", UserStats::getHighestScore, UserStatsUpdatedEvent::highestScore,
+            GameSessionEndedEvent::score, false),
+    HIGHEST_LEVEL("highest-level", UserStats::getHighestLevelReached, UserStatsUpdatedEvent::highestLevelReached,
+            GameSessionEndedEvent::levelReached, false),
+    TOTAL_GHOSTS("total-ghosts", UserStats::getTotalGhostsEaten, UserStatsUpdatedEvent::totalGhostsEaten,
+            GameSessionEndedEvent::ghostsEaten, true);
+
+    private final String slug;
+    private final ToIntFunction<UserStats> statsValue;
+    private final ToIntFunction<UserStatsUpdatedEvent> eventValue;
+    private final ToIntFunction<GameSessionEndedEvent> sessionValue;
+    private final boolean cumulative;
+
+    LeaderboardCategory(String slug,
+                        ToIntFunction<UserStats> statsValue,
+                        ToIntFunction<UserStatsUpdatedEvent> eventValue,
+                        ToIntFunction<GameSessionEndedEvent> sessionValue,
+                        boolean cumulative) {
+        this.slug = slug;
+        this.statsValue = statsValue;
+        this.eventValue = eventValue;
+        this.sessionValue = sessionValue;
+        this.cumulative = cumulative;
+    }
+
+    public String getSlug() {
+        return slug;
+    }
+
+    public int valueOf(UserStats stats) {
+        return statsValue.applyAsInt(stats);
+    }
+
+    public int valueOf(UserStatsUpdatedEvent event) {
+        return eventValue.applyAsInt(event);
+    }
+
+    /**
+     * A player's value after adding one more session: a running total for
+     * cumulative categories, the best single session otherwise.
+     */
+    public int merge(int current, GameSessionEndedEvent session) {
+        int value = sessionValue.applyAsInt(session);
+        return cumulative ? current + value : Math.max(current, value);
+    }
+
+    public static LeaderboardCategory fromSlug(String slug) {
+        for (LeaderboardCategory category : values()) {
+            if (category.slug.equalsIgnoreCase(slug) || category.name().equalsIgnoreCase(slug)) {
+                return category;
+            }
+        }
+        throw new BadRequestException("Unknown leaderboard category: " + slug);
+    }
+}
@@ -0,0 +1,42 @@
+package com.dcisman.service;
+
+import com.dcisman.dto.LeaderboardEntry;
+import com.dcisman.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque position in a leaderboard: the (value, userId) key of the last entry a
+ * client has seen, plus that entry's rank so the next page can be numbered
+ * without counting the rows ahead of it. Rows are ordered by value DESC, then
+ * userId ASC, so every key is unique and ties never repeat or skip.
+ */
+public record LeaderboardCursor(LeaderboardCategory category, int value, long userId, int rank) {
+
+    public static LeaderboardCursor after(LeaderboardCategory category, LeaderboardEntry entry) {
+        return new LeaderboardCursor(category, entry.getValue(), entry.getUserId(), entry.getRank());
+    }
+
+    public String encode() {
+        String raw = category.name() + ":" + value + ":" + userId + ":" + rank;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static LeaderboardCursor decode(LeaderboardCategory category, String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 4 || !category.name().equals(parts[0])) {
+                throw new BadRequestException("Invalid leaderboard cursor");
+            }
+            int rank = Integer.parseInt(parts[3]);
+            if (rank < 1) {
+                throw new BadRequestException("Invalid leaderboard cursor");
+            }
+            return new LeaderboardCursor(category, Integer.parseInt(parts[1]), Long.parseLong(parts[2]), rank);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid leaderboard cursor");
+        }
+    }
+}
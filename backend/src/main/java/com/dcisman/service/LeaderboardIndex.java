@@ -0,0 +1,358 @@
+package com.dcisman.service;
+
+import com.dcisman.dto.LeaderboardEntry;
+import com.dcisman.event.UserProfileUpdatedEvent;
+import com.dcisman.event.UserStatsUpdatedEvent;
+import com.dcisman.repository.UserStatsRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process ranking of every player in {@code user_stats}, one order-statistic
+ * tree per {@link LeaderboardCategory}. Loaded once at startup and kept current
+ * from committed stats updates, so page reads and rank lookups never hit MySQL.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LeaderboardIndex {
+
+    private final UserStatsRepository userStatsRepository;
+
+    @Value("${leaderboard.index.enabled:true}")
+    private boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<LeaderboardCategory, RankTree> trees = new EnumMap<>(LeaderboardCategory.class);
+    private final Map<Long, Player> players = new HashMap<>();
+    private final AtomicLongArray versions = new AtomicLongArray(LeaderboardCategory.values().length);
+    private volatile boolean ready;
+    // Updates received while load() reads user_stats, replayed onto the new index; null otherwise
+    private volatile List<Object> missedDuringLoad;
+
+    private static final class Player {
+        final long userId;
+        String username;
+        String name;
+        String idNumber;
+        final int[] values = new int[LeaderboardCategory.values().length];
+
+        Player(long userId) {
+            this.userId = userId;
+        }
+    }
+
+    /**
+     * Builds the index from {@code user_stats} and swaps it in. On a reload the
+     * live index keeps serving and taking updates meanwhile; updates committed
+     * after the read started are also kept aside and replayed onto the new
+     * index before it is swapped in, so none is lost with the old one.
+     */
+    @PostConstruct
+    public void load() {
+        if (!enabled) {
+            log.info("Leaderboard index disabled, leaderboards will be served from the database");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            missedDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<UserStatsUpdatedEvent> allStats;
+        try {
+            allStats = userStatsRepository.findAllUpdatedEvents();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                missedDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        Map<LeaderboardCategory, RankTree> loadedTrees = new EnumMap<>(LeaderboardCategory.class);
+        for (LeaderboardCategory category : LeaderboardCategory.values()) {
+            loadedTrees.put(category, new RankTree());
+        }
+        Map<Long, Player> loadedPlayers = new HashMap<>();
+        for (UserStatsUpdatedEvent stats : allStats) {
+            Player player = new Player(stats.userId());
+            player.username = stats.username();
+            player.name = stats.name();
+            player.idNumber = stats.idNumber();
+            for (LeaderboardCategory category : LeaderboardCategory.values()) {
+                int value = category.valueOf(stats);
+                player.values[category.ordinal()] = value;
+                loadedTrees.get(category).insert(value, player.userId);
+            }
+            loadedPlayers.put(player.userId, player);
+        }
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            trees.clear();
+            trees.putAll(loadedTrees);
+            players.clear();
+            players.putAll(loadedPlayers);
+            replayed = missedDuringLoad.size();
+            for (Object event : missedDuringLoad) {
+                if (event instanceof UserStatsUpdatedEvent statsUpdated) {
+                    applyStats(statsUpdated);
+                } else if (event instanceof UserProfileUpdatedEvent profileUpdated) {
+                    applyProfile(profileUpdated);
+                }
+            }
+            missedDuringLoad = null;
+            bumpAllVersions();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Loaded leaderboard index with {} players in {} ms ({} updates replayed)",
+                allStats.size(), System.currentTimeMillis() - start, replayed);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return players.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Entries at zero-based positions {@code [offset, offset + limit)} in rank order.
+     */
+    public List<LeaderboardEntry> page(LeaderboardCategory category, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<RankTree.Entry> keys = trees.get(category).range(offset, limit);
+            List<LeaderboardEntry> entries = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                RankTree.Entry key = keys.get(i);
+                Player player = players.get(key.userId());
+                entries.add(LeaderboardEntry.builder()
+                        .userId(player.userId)
+                        .username(player.username)
+                        .name(player.name)
+                        .idNumber(player.idNumber)
+                        .value(key.value())
+                        .rank(offset + i + 1)
+                        .build());
+            }
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} entries ordered strictly after the key (value, userId),
+     * with their current ranks. The key need not still be in the tree, so a
+     * cursor stays valid after the player it points at has moved.
+     */
+    public List<LeaderboardEntry> pageAfter(LeaderboardCategory category, int value, long userId, int limit) {
+        lock.readLock().lock();
+        try {
+            // (value, userId + 1) is the next possible key, so everything ahead of it is at or before the cursor
+            int offset = trees.get(category).countAhead(value, userId + 1);
+            return page(category, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * One-based rank of the user in the category, or {@code null} if the user has no stats yet.
+     */
+    public Integer rankOf(LeaderboardCategory category, Long userId) {
+        lock.readLock().lock();
+        try {
+            Player player = players.get(userId);
+            if (player == null) {
+                return null;
+            }
+            return trees.get(category).countAhead(player.values[category.ordinal()], player.userId) + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The user's own entry plus up to {@code radius} entries on either side, read
+     * under a single lock so the ranks are consistent with each other. Empty if
+     * the user has no stats yet.
+     */
+    public List<LeaderboardEntry> around(LeaderboardCategory category, Long userId, int radius) {
+        lock.readLock().lock();
+        try {
+            Player player = players.get(userId);
+            if (player == null) {
+                return List.of();
+            }
+            int position = trees.get(category).countAhead(player.values[category.ordinal()], player.userId);
+            int offset = Math.max(0, position - radius);
+            return page(category, offset, position - offset + radius + 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * An entry builder carrying the player's display fields, or {@code null} if
+     * the player is not in the index.
+     */
+    LeaderboardEntry.LeaderboardEntryBuilder describe(long userId) {
+        lock.readLock().lock();
+        try {
+            Player player = players.get(userId);
+            if (player == null) {
+                return null;
+            }
+            return LeaderboardEntry.builder()
+                    .userId(player.userId)
+                    .username(player.username)
+                    .name(player.name)
+                    .idNumber(player.idNumber);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Monotonic version of a category's contents. It changes whenever an entry's
+     * value, position or displayed name changes, and never otherwise.
+     */
+    public long version(LeaderboardCategory category) {
+        return versions.get(category.ordinal());
+    }
+
+    @TransactionalEventListener
+    public void onStatsUpdated(UserStatsUpdatedEvent event) {
+        if (!ready && missedDuringLoad == null) {
+            // Nothing to compare against, so any update may have changed any board
+            bumpAllVersions();
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (missedDuringLoad != null) {
+                missedDuringLoad.add(event);
+            }
+            if (ready) {
+                applyStats(event);
+            } else {
+                bumpAllVersions();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onProfileUpdated(UserProfileUpdatedEvent event) {
+        if (!ready && missedDuringLoad == null) {
+            bumpAllVersions();
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (missedDuringLoad != null) {
+                missedDuringLoad.add(event);
+            }
+            if (ready) {
+                applyProfile(event);
+            } else {
+                bumpAllVersions();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Callers hold the write lock
+    private void applyStats(UserStatsUpdatedEvent event) {
+        Player player = players.get(event.userId());
+        if (player == null) {
+            player = new Player(event.userId());
+            for (LeaderboardCategory category : LeaderboardCategory.values()) {
+                int value = category.valueOf(event);
+                player.values[category.ordinal()] = value;
+                trees.get(category).insert(value, player.userId);
+            }
+            players.put(player.userId, player);
+            setDisplay(player, event.username(), event.name(), event.idNumber());
+            bumpAllVersions();
+            return;
+        }
+
+        for (LeaderboardCategory category : LeaderboardCategory.values()) {
+            int current = player.values[category.ordinal()];
+            // Leaderboard stats only ever grow, so taking the max keeps the
+            // index correct even if two commits' events arrive out of order.
+            int value = Math.max(current, category.valueOf(event));
+            if (value != current) {
+                RankTree tree = trees.get(category);
+                tree.remove(current, player.userId);
+                tree.insert(value, player.userId);
+                player.values[category.ordinal()] = value;
+                versions.incrementAndGet(category.ordinal());
+            }
+        }
+        if (setDisplay(player, event.username(), event.name(), event.idNumber())) {
+            bumpAllVersions();
+        }
+    }
+
+    // Callers hold the write lock
+    private void applyProfile(UserProfileUpdatedEvent event) {
+        Player player = players.get(event.userId());
+        if (player != null && setDisplay(player, event.username(), event.name(), event.idNumber())) {
+            bumpAllVersions();
+        }
+    }
+
+    private boolean setDisplay(Player player, String username, String name, String idNumber) {
+        boolean changed = !Objects.equals(player.username, username)
+                || !Objects.equals(player.name, name)
+                || !Objects.equals(player.idNumber, idNumber);
+        player.username = username;
+        player.name = name;
+        player.idNumber = idNumber;
+        return changed;
+    }
+
+    private void bumpAllVersions() {
+        for (int i = 0; i < versions.length(); i++) {
+            versions.incrementAndGet(i);
+        }
+    }
+}
@@ -2,122 +2,324 @@ package com.dcisman.service;
 
 import com.dcisman.dto.LeaderboardEntry;
 import com.dcisman.dto.LeaderboardResponse;
-import com.dcisman.entity.UserStats;
+import com.dcisman.dto.PlayerRankResponse;
+import com.dcisman.event.UserStatsUpdatedEvent;
+import com.dcisman.exception.BadRequestException;
+import com.dcisman.exception.ServiceUnavailableException;
 import com.dcisman.repository.UserStatsRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed("dcisman.service")
 public class LeaderboardService {
 
+    // Deepest rank getEntries serves; the database fallback reads every entry above it
+    public static final int MAX_ENTRIES_RANK = 10_000;
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final int MAX_RANK_RADIUS = 50;
+
     private final UserStatsRepository userStatsRepository;
+    private final LeaderboardIndex leaderboardIndex;
+    private final WindowedLeaderboardIndex windowedIndex;
+
+    // Player total for the database fallback, so a page costs one query instead of two
+    private volatile long cachedPlayerCount = -1;
 
-    @Transactional(readOnly = true)
     public LeaderboardResponse getHighScoreLeaderboard(int page, int pageSize) {
-        long totalPlayers = userStatsRepository.count();
-        int totalPages = (int) Math.ceil((double) totalPlayers / pageSize);
-
-        Pageable pageable = PageRequest.of(page, pageSize);
-        List<UserStats> topStats = userStatsRepository.findTopByHighestScore(pageable);
-
-        List<LeaderboardEntry> entries = topStats.stream()
-            .map(stats -> LeaderboardEntry.builder()
-                    .userId(stats.getUser().getId())
-                    .username(stats.getUser().getUsername())
-                    .name(stats.getUser().getName())
-                    .idNumber(stats.getUser().getIdNumber())
-                    .value(stats.getHighestScore())
-                    .rank((page * pageSize) + topStats.indexOf(stats) + 1)
-                    .build())
-            .collect(Collectors.toList());
+        return getLeaderboard(LeaderboardCategory.HIGH_SCORE, page, pageSize);
+    }
+
+    public LeaderboardResponse getHighestLevelLeaderboard(int page, int pageSize) {
+        return getLeaderboard(LeaderboardCategory.HIGHEST_LEVEL, page, pageSize);
+    }
+
+    public LeaderboardResponse getTotalGhostsLeaderboard(int page, int pageSize) {
+        return getLeaderboard(LeaderboardCategory.TOTAL_GHOSTS, page, pageSize);
+    }
+
+    public List<LeaderboardResponse> getAllLeaderboards(int page, int pageSize) {
+        return List.of(
+            getHighScoreLeaderboard(page, pageSize),
+            getHighestLevelLeaderboard(page, pageSize),
+            getTotalGhostsLeaderboard(page, pageSize)
+        );
+    }
+
+    public List<LeaderboardResponse> getAllLeaderboards(LeaderboardWindow window, int page, int pageSize) {
+        if (window == LeaderboardWindow.ALL_TIME) {
+            return getAllLeaderboards(page, pageSize);
+        }
+        List<LeaderboardResponse> responses = new ArrayList<>();
+        for (LeaderboardCategory category : LeaderboardCategory.values()) {
+            responses.add(getLeaderboard(category, window, page, pageSize));
+        }
+        return responses;
+    }
+
+    /**
+     * A page of a time-windowed leaderboard. Windows other than all-time are only
+     * kept in memory, so they are unavailable when the leaderboard index is off.
+     */
+    public LeaderboardResponse getLeaderboard(LeaderboardCategory category, LeaderboardWindow window,
+                                              int page, int pageSize) {
+        requirePage(page, pageSize);
+        if (window == LeaderboardWindow.ALL_TIME) {
+            return getLeaderboard(category, page, pageSize);
+        }
+        requireWindows();
+        List<LeaderboardEntry> entries = windowedIndex.page(window, category, page * pageSize, pageSize);
+        return toResponse(category, window, entries, windowedIndex.size(window), page, pageSize);
+    }
+
+    public LeaderboardResponse getLeaderboardAfter(LeaderboardCategory category, LeaderboardWindow window,
+                                                   String cursor, int pageSize) {
+        if (window == LeaderboardWindow.ALL_TIME) {
+            return getLeaderboardAfter(category, cursor, pageSize);
+        }
+        requirePageSize(pageSize);
+        requireWindows();
+        LeaderboardCursor after = LeaderboardCursor.decode(category, cursor);
+        List<LeaderboardEntry> entries = windowedIndex.pageAfter(window, category, after.value(), after.userId(), pageSize);
+        int firstRank = entries.isEmpty() ? after.rank() + 1 : entries.get(0).getRank();
+        return toResponse(category, window, entries, windowedIndex.size(window), (firstRank - 1) / pageSize, pageSize);
+    }
+
+    public LeaderboardResponse getLeaderboard(LeaderboardCategory category, int page, int pageSize) {
+        requirePage(page, pageSize);
+        long totalPlayers;
+        List<LeaderboardEntry> entries;
+
+        if (leaderboardIndex.isReady()) {
+            totalPlayers = leaderboardIndex.size();
+            entries = leaderboardIndex.page(category, page * pageSize, pageSize);
+        } else {
+            totalPlayers = countPlayers();
+            entries = rank(findTop(category, PageRequest.of(page, pageSize)), page * pageSize);
+        }
+
+        return toResponse(category, LeaderboardWindow.ALL_TIME, entries, totalPlayers, page, pageSize);
+    }
+
+    /**
+     * The page that follows {@code cursor}. Seeks on (value, userId) instead of
+     * skipping rows, so deep pages cost the same as the first one.
+     */
+    public LeaderboardResponse getLeaderboardAfter(LeaderboardCategory category, String cursor, int pageSize) {
+        requirePageSize(pageSize);
+        LeaderboardCursor after = LeaderboardCursor.decode(category, cursor);
+        long totalPlayers;
+        List<LeaderboardEntry> entries;
+
+        if (leaderboardIndex.isReady()) {
+            totalPlayers = leaderboardIndex.size();
+            entries = leaderboardIndex.pageAfter(category, after.value(), after.userId(), pageSize);
+        } else {
+            totalPlayers = countPlayers();
+            entries = rank(findAfter(category, after.value(), after.userId(), PageRequest.of(0, pageSize)), after.rank());
+        }
+
+        int firstRank = entries.isEmpty() ? after.rank() + 1 : entries.get(0).getRank();
+        return toResponse(category, LeaderboardWindow.ALL_TIME, entries, totalPlayers, (firstRank - 1) / pageSize, pageSize);
+    }
+
+    /**
+     * Entries at zero-based positions {@code [offset, offset + limit)}. Without the
+     * index this reads the whole prefix, so it is meant for windows near the top.
+     */
+    public List<LeaderboardEntry> getEntries(LeaderboardCategory category, int offset, int limit) {
+        if (offset < 0 || limit < 0 || (long) offset + limit > MAX_ENTRIES_RANK) {
+            throw new BadRequestException("Entries must lie within the top " + MAX_ENTRIES_RANK + " ranks");
+        }
+        if (leaderboardIndex.isReady()) {
+            return leaderboardIndex.page(category, offset, limit);
+        }
+        List<LeaderboardEntry> prefix = findTop(category, PageRequest.of(0, offset + limit));
+        return rank(new ArrayList<>(prefix.subList(Math.min(offset, prefix.size()), prefix.size())), offset);
+    }
+
+    public int getTotalPlayers() {
+        return leaderboardIndex.isReady() ? leaderboardIndex.size() : (int) countPlayers();
+    }
+
+    public PlayerRankResponse getPlayerRank(LeaderboardCategory category, Long userId, int radius) {
+        return getPlayerRank(category, LeaderboardWindow.ALL_TIME, userId, radius);
+    }
+
+    public PlayerRankResponse getPlayerRank(LeaderboardCategory category, LeaderboardWindow window,
+                                            Long userId, int radius) {
+        if (radius < 0 || radius > MAX_RANK_RADIUS) {
+            throw new BadRequestException("Radius must be between 0 and " + MAX_RANK_RADIUS);
+        }
+
+        long totalPlayers;
+        List<LeaderboardEntry> entries;
+
+        if (window != LeaderboardWindow.ALL_TIME) {
+            requireWindows();
+            totalPlayers = windowedIndex.size(window);
+            entries = windowedIndex.around(window, category, userId, radius);
+        } else if (leaderboardIndex.isReady()) {
+            totalPlayers = leaderboardIndex.size();
+            entries = leaderboardIndex.around(category, userId, radius);
+        } else {
+            totalPlayers = countPlayers();
+            entries = findAroundInDatabase(category, userId, radius);
+        }
+
+        LeaderboardEntry self = entries.stream()
+            .filter(entry -> entry.getUserId().equals(userId))
+            .findFirst()
+            .orElse(null);
+
+        return PlayerRankResponse.builder()
+            .category(category.name())
+            .window(window.getSlug())
+            .userId(userId)
+            .rank(self != null ? self.getRank() : null)
+            .value(self != null ? self.getValue() : null)
+            .totalPlayers((int) totalPlayers)
+            .entries(entries)
+            .lastUpdated(LocalDateTime.now())
+            .build();
+    }
+
+    private List<LeaderboardEntry> findAroundInDatabase(LeaderboardCategory category, Long userId, int radius) {
+        List<UserStatsUpdatedEvent> own = userStatsRepository.findUpdatedEventsByUserIds(List.of(userId));
+        if (own.isEmpty()) {
+            return List.of();
+        }
+
+        UserStatsUpdatedEvent stats = own.get(0);
+        int value = category.valueOf(stats);
+        int ahead = (int) countAhead(category, value, userId);
+
+        List<LeaderboardEntry> window = new ArrayList<>(2 * radius + 1);
+        if (radius > 0) {
+            List<LeaderboardEntry> before = new ArrayList<>(findBefore(category, value, userId, PageRequest.of(0, radius)));
+            Collections.reverse(before);
+            window.addAll(before);
+        }
+        int offset = ahead - window.size();
+        window.add(new LeaderboardEntry(userId, stats.username(), stats.name(), stats.idNumber(), value));
+        if (radius > 0) {
+            window.addAll(findAfter(category, value, userId, PageRequest.of(0, radius)));
+        }
+
+        return rank(window, offset);
+    }
+
+    /**
+     * Refreshes the fallback player total while the index is not serving reads.
+     * The total may lag by one interval, which only affects page counts.
+     */
+    @Scheduled(fixedDelayString = "${leaderboard.fallback.count-refresh-ms:10000}")
+    public void refreshPlayerCount() {
+        if (!leaderboardIndex.isReady()) {
+            cachedPlayerCount = userStatsRepository.count();
+        }
+    }
+
+    private long countPlayers() {
+        long count = cachedPlayerCount;
+        if (count < 0) {
+            count = userStatsRepository.count();
+            cachedPlayerCount = count;
+        }
+        return count;
+    }
+
+    // Numbered pages stay within the top ranks; the cursor serves anything deeper
+    private static void requirePage(int page, int pageSize) {
+        requirePageSize(pageSize);
+        if (page < 0 || (long) page * pageSize >= MAX_ENTRIES_RANK) {
+            throw new BadRequestException("Page must start within the top " + MAX_ENTRIES_RANK
+                + " ranks; use the cursor to page further");
+        }
+    }
+
+    private static void requirePageSize(int pageSize) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    private void requireWindows() {
+        if (!windowedIndex.isReady()) {
+            throw new ServiceUnavailableException("Daily, weekly and monthly leaderboards are not available", 60);
+        }
+    }
+
+    private LeaderboardResponse toResponse(LeaderboardCategory category, LeaderboardWindow window,
+                                           List<LeaderboardEntry> entries, long totalPlayers, int page, int pageSize) {
+        String nextCursor = !entries.isEmpty() && entries.size() == pageSize
+            ? LeaderboardCursor.after(category, entries.get(entries.size() - 1)).encode()
+            : null;
 
         return LeaderboardResponse.builder()
-            .category("HIGH_SCORE")
+            .category(category.name())
+            .window(window.getSlug())
             .entries(entries)
             .lastUpdated(LocalDateTime.now())
             .totalPlayers((int) totalPlayers)
             .currentPage(page)
-            .totalPages(totalPages)
+            .totalPages((int) Math.ceil((double) totalPlayers / pageSize))
             .pageSize(pageSize)
+            .nextCursor(nextCursor)
             .build();
     }
 
-    @Transactional(readOnly = true)
-    public LeaderboardResponse getHighestLevelLeaderboard(int page, int pageSize) {
-        long totalPlayers = userStatsRepository.count();
-        int totalPages = (int) Math.ceil((double) totalPlayers / pageSize);
-
-        Pageable pageable = PageRequest.of(page, pageSize);
-        List<UserStats> topStats = userStatsRepository.findTopByHighestLevel(pageable);
-
-        List<LeaderboardEntry> entries = topStats.stream()
-            .map(stats -> LeaderboardEntry.builder()
-                    .userId(stats.getUser().getId())
-                    .username(stats.getUser().getUsername())
-                    .name(stats.getUser().getName())
-                    .idNumber(stats.getUser().getIdNumber())
-                    .value(stats.getHighestLevelReached())
-                    .rank((page * pageSize) + topStats.indexOf(stats) + 1)
-                    .build())
-            .collect(Collectors.toList());
+    private long countAhead(LeaderboardCategory category, int value, Long userId) {
+        return switch (category) {
+            case HIGH_SCORE -> userStatsRepository.countAheadByHighestScore(value, userId);
+            case HIGHEST_LEVEL -> userStatsRepository.countAheadByHighestLevel(value, userId);
+            case TOTAL_GHOSTS -> userStatsRepository.countAheadByTotalGhostsEaten(value, userId);
+        };
+    }
 
-        return LeaderboardResponse.builder()
-                .category("HIGHEST_LEVEL")
-                .entries(entries)
-                .lastUpdated(LocalDateTime.now())
-                .totalPlayers((int) totalPlayers)
-                .currentPage(page)
-                .totalPages(totalPages)
-                .pageSize(pageSize)
-                .build();
+    private List<LeaderboardEntry> findBefore(LeaderboardCategory category, int value, Long userId, Pageable pageable) {
+        return switch (category) {
+            case HIGH_SCORE -> userStatsRepository.findHighestScoreBefore(value, userId, pageable);
+            case HIGHEST_LEVEL -> userStatsRepository.findHighestLevelBefore(value, userId, pageable);
+            case TOTAL_GHOSTS -> userStatsRepository.findTotalGhostsEatenBefore(value, userId, pageable);
+        };
     }
 
-    @Transactional(readOnly = true)
-    public LeaderboardResponse getTotalGhostsLeaderboard(int page, int pageSize) {
-        long totalPlayers = userStatsRepository.count();
-        int totalPages = (int) Math.ceil((double) totalPlayers / pageSize);
-
-        Pageable pageable = PageRequest.of(page, pageSize);
-        List<UserStats> topStats = userStatsRepository.findTopByTotalGhostsEaten(pageable);
-
-        List<LeaderboardEntry> entries = topStats.stream()
-            .map(stats -> LeaderboardEntry.builder()
-                    .userId(stats.getUser().getId())
-                    .username(stats.getUser().getUsername())
-                    .name(stats.getUser().getName())
-                    .idNumber(stats.getUser().getIdNumber())
-                    .value(stats.getTotalGhostsEaten())
-                    .rank((page * pageSize) + topStats.indexOf(stats) + 1)
-                    .build())
-            .collect(Collectors.toList());
+    private List<LeaderboardEntry> findAfter(LeaderboardCategory category, int value, Long userId, Pageable pageable) {
+        return switch (category) {
+            case HIGH_SCORE -> userStatsRepository.findHighestScoreAfter(value, userId, pageable);
+            case HIGHEST_LEVEL -> userStatsRepository.findHighestLevelAfter(value, userId, pageable);
+            case TOTAL_GHOSTS -> userStatsRepository.findTotalGhostsEatenAfter(value, userId, pageable);
+        };
+    }
 
-        return LeaderboardResponse.builder()
-                .category("TOTAL_GHOSTS")
-                .entries(entries)
-                .lastUpdated(LocalDateTime.now())
-                .totalPlayers((int) totalPlayers)
-                .currentPage(page)
-                .totalPages(totalPages)
-                .pageSize(pageSize)
-                .build();
+    private List<LeaderboardEntry> findTop(LeaderboardCategory category, Pageable pageable) {
+        return switch (category) {
+            case HIGH_SCORE -> userStatsRepository.findTopByHighestScore(pageable);
+            case HIGHEST_LEVEL -> userStatsRepository.findTopByHighestLevel(pageable);
+            case TOTAL_GHOSTS -> userStatsRepository.findTopByTotalGhostsEaten(pageable);
+        };
     }
 
-    @Transactional(readOnly = true)
-    public List<LeaderboardResponse> getAllLeaderboards(int page, int pageSize) {
-        return List.of(
-            getHighScoreLeaderboard(page, pageSize),
-            getHighestLevelLeaderboard(page, pageSize),
-            getTotalGhostsLeaderboard(page, pageSize)
-        );
+    // Ranks come from the position, as the rows are already in leaderboard order
+    private static List<LeaderboardEntry> rank(List<LeaderboardEntry> entries, int offset) {
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).setRank(offset + i + 1);
+        }
+        return entries;
     }
 }
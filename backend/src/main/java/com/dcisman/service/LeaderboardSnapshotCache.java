@@ -0,0 +1,116 @@
+package com.dcisman.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.util.function.Supplier;
+
+/**
+ * Serialized leaderboard pages keyed by (category, window, page, pageSize), each
+ * tagged with the category version it was built from and a strong ETag over its bytes.
+ * A page is rebuilt only after its category version moves, so repeated polls
+ * cost a map lookup and, with If-None-Match, an ETag comparison. Only the first
+ * {@code leaderboard.snapshots.cached-pages} pages of a valid size are cached,
+ * and the cache is bounded by body bytes rather than entries. Pages after a
+ * cursor, deeper pages and invalid requests are built on every request, so a
+ * client walking arbitrary keys cannot evict the pages everyone else polls.
+ */
+@Component
+@RequiredArgsConstructor
+public class LeaderboardSnapshotCache {
+
+    private final LeaderboardService leaderboardService;
+    private final LeaderboardIndex leaderboardIndex;
+    private final WindowedLeaderboardIndex windowedIndex;
+    private final ObjectMapper objectMapper;
+
+    @Value("${leaderboard.snapshots.max-bytes:16777216}")
+    private long maxBytes;
+
+    @Value("${leaderboard.snapshots.cached-pages:10}")
+    private int cachedPages;
+
+    private Cache<Key, Snapshot> snapshots;
+
+    private record Key(LeaderboardCategory category, LeaderboardWindow window, int page, int pageSize) {
+    }
+
+    public record Snapshot(long version, byte[] body, String etag) {
+    }
+
+    @PostConstruct
+    public void init() {
+        snapshots = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, Snapshot snapshot) -> snapshot.body().length)
+                .build();
+    }
+
+    public Snapshot getLeaderboard(LeaderboardCategory category, LeaderboardWindow window, int page, int pageSize) {
+        return get(new Key(category, window, page, pageSize), version(category, window),
+                () -> leaderboardService.getLeaderboard(category, window, page, pageSize));
+    }
+
+    public Snapshot getLeaderboardAfter(LeaderboardCategory category, LeaderboardWindow window,
+                                        String cursor, int pageSize) {
+        long version = version(category, window);
+        return serialize(version, leaderboardService.getLeaderboardAfter(category, window, cursor, pageSize));
+    }
+
+    /**
+     * Snapshot of all categories together. Versions only grow, so their sum moves
+     * whenever any single category does.
+     */
+    public Snapshot getAllLeaderboards(LeaderboardWindow window, int page, int pageSize) {
+        long version = 0;
+        for (LeaderboardCategory category : LeaderboardCategory.values()) {
+            version += version(category, window);
+        }
+        return get(new Key(null, window, page, pageSize), version,
+                () -> leaderboardService.getAllLeaderboards(window, page, pageSize));
+    }
+
+    // Windowed entries take their display names from the all-time index, so both versions count
+    private long version(LeaderboardCategory category, LeaderboardWindow window) {
+        long version = leaderboardIndex.version(category);
+        return window == LeaderboardWindow.ALL_TIME ? version : version + windowedIndex.version(window, category);
+    }
+
+    private Snapshot get(Key key, long version, Supplier<Object> builder) {
+        if (!isCacheable(key)) {
+            return serialize(version, builder.get());
+        }
+        Snapshot cached = snapshots.getIfPresent(key);
+        if (cached != null && cached.version() >= version) {
+            return cached;
+        }
+
+        // The version is read before building, so the body is at least as new as it claims
+        Snapshot snapshot = serialize(version, builder.get());
+        snapshots.asMap().merge(key, snapshot,
+                (existing, fresh) -> existing.version() >= fresh.version() ? existing : fresh);
+        return snapshot;
+    }
+
+    // The service rejects anything outside these bounds, so such keys never reach the cache
+    private boolean isCacheable(Key key) {
+        return key.page() >= 0 && key.page() < cachedPages
+                && key.pageSize() >= 1 && key.pageSize() <= LeaderboardService.MAX_PAGE_SIZE;
+    }
+
+    private Snapshot serialize(long version, Object leaderboards) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(leaderboards);
+            return new Snapshot(version, body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize leaderboard", e);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.dcisman.service;
+
+import com.dcisman.dto.LeaderboardEntry;
+import com.dcisman.dto.LeaderboardStreamEvent;
+import com.dcisman.exception.BadRequestException;
+import com.dcisman.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes leaderboard changes to Server-Sent Events subscribers. Each subscriber
+ * watches one category and rank window. A dedicated scheduler thread checks the
+ * category versions once per tick and works out a diff only for subscribers
+ * whose window actually changed. The writes themselves run on a small bounded
+ * pool, at most one per subscriber at a time: a client that reads slowly is
+ * skipped while its last write is in flight and catches up with one combined
+ * diff afterwards. Open connections hold no servlet thread while idle.
+ *
+ * <p>A write to a client that stopped reading blocks its send thread until the
+ * container's write timeout ({@code server.tomcat.connection-timeout}) fails it
+ * and closes the connection. Dropping the subscriber after
+ * {@code leaderboard.stream.max-send-ms} stops further diffs but cannot unblock
+ * that write, so as many stuck clients as there are send threads delay every
+ * other subscriber by up to that timeout. Subscribing requires a signed-in
+ * player, and each player holds at most
+ * {@code leaderboard.stream.max-subscribers-per-user} streams.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LeaderboardStreamService {
+
+    public static final String DROPPED_METRIC = "dcisman.leaderboard_stream.dropped";
+
+    private static final int MAX_WINDOW = 100;
+
+    private final LeaderboardService leaderboardService;
+    private final LeaderboardIndex leaderboardIndex;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${leaderboard.stream.interval-ms:1000}")
+    private long intervalMillis;
+
+    @Value("${leaderboard.stream.keep-alive-ms:30000}")
+    private long keepAliveMillis;
+
+    @Value("${leaderboard.stream.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${leaderboard.stream.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${leaderboard.stream.max-subscribers-per-user:5}")
+    private int maxSubscribersPerUser;
+
+    @Value("${leaderboard.stream.send-threads:4}")
+    private int sendThreads;
+
+    @Value("${leaderboard.stream.max-send-ms:10000}")
+    private long maxSendMillis;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Integer> subscriptionsByUser = new ConcurrentHashMap<>();
+    private final Map<LeaderboardCategory, Long> dispatchedVersions = new EnumMap<>(LeaderboardCategory.class);
+    private ScheduledExecutorService scheduler;
+    private ThreadPoolExecutor sendPool;
+    private ExecutorService sender;
+    private Counter dropped;
+
+    private static final class Subscription {
+        final Long userId;
+        final LeaderboardCategory category;
+        final int fromRank;
+        final int toRank;
+        final SseEmitter emitter;
+        // Set by the scheduler when it hands a write to the send pool, cleared when the write ends;
+        // starts set because the snapshot is still to be written
+        final AtomicBoolean sending = new AtomicBoolean(true);
+        volatile long sendStartedNanos = System.nanoTime();
+        // Missed a change while a write was in flight, so the next tick diffs it even if nothing moved
+        volatile boolean behind;
+        volatile List<LeaderboardEntry> lastEntries = List.of();
+
+        Subscription(Long userId, LeaderboardCategory category, int fromRank, int toRank, SseEmitter emitter) {
+            this.userId = userId;
+            this.category = category;
+            this.fromRank = fromRank;
+            this.toRank = toRank;
+            this.emitter = emitter;
+        }
+    }
+
+    private record Window(LeaderboardCategory category, int fromRank, int toRank) {
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leaderboard-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::dispatchSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::keepAlive, keepAliveMillis, keepAliveMillis, TimeUnit.MILLISECONDS);
+
+        // At most one write per subscriber is queued or running, so the queue never fills up in practice
+        AtomicInteger index = new AtomicInteger();
+        sendPool = new ThreadPoolExecutor(sendThreads, sendThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxSubscribers)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "leaderboard-stream-send-" + index.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        sender = ExecutorServiceMetrics.monitor(meterRegistry, sendPool, "leaderboard-stream-send", "dcisman");
+        dropped = meterRegistry.counter(DROPPED_METRIC);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        sendPool.shutdownNow();
+        subscriptions.forEach(subscription -> subscription.emitter.complete());
+        subscriptions.clear();
+        subscriptionsByUser.clear();
+    }
+
+    public SseEmitter subscribe(Long userId, LeaderboardCategory category, int fromRank, int toRank) {
+        if (fromRank < 1 || toRank < fromRank || toRank - fromRank + 1 > MAX_WINDOW) {
+            throw new BadRequestException("Rank window must start at 1 or later and span at most " + MAX_WINDOW + " ranks");
+        }
+        if (toRank > LeaderboardService.MAX_ENTRIES_RANK) {
+            throw new BadRequestException("Rank window must end at rank " + LeaderboardService.MAX_ENTRIES_RANK + " or earlier");
+        }
+        if (subscriptions.size() >= maxSubscribers) {
+            throw new ServiceUnavailableException("Too many leaderboard subscribers, fall back to polling", 60);
+        }
+        if (!reserve(userId)) {
+            throw new ServiceUnavailableException(
+                    "At most " + maxSubscribersPerUser + " leaderboard streams per player, fall back to polling", 60);
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscription subscription = new Subscription(userId, category, fromRank, toRank, emitter);
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(() -> remove(subscription));
+        emitter.onError(error -> remove(subscription));
+
+        // The first snapshot is read on the scheduler thread, and diffs wait until it is written
+        subscriptions.add(subscription);
+        scheduler.execute(() -> {
+            try {
+                List<LeaderboardEntry> entries = loadWindow(new Window(category, fromRank, toRank));
+                send(subscription, "snapshot", entries, entries, leaderboardService.getTotalPlayers());
+            } catch (RuntimeException e) {
+                remove(subscription);
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    private boolean reserve(Long userId) {
+        boolean[] reserved = {false};
+        subscriptionsByUser.compute(userId, (id, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= maxSubscribersPerUser) {
+                return count;
+            }
+            reserved[0] = true;
+            return current + 1;
+        });
+        return reserved[0];
+    }
+
+    // Every path that ends a subscription comes through here, so the per-player count is released once
+    private boolean remove(Subscription subscription) {
+        if (!subscriptions.remove(subscription)) {
+            return false;
+        }
+        subscriptionsByUser.computeIfPresent(subscription.userId, (id, count) -> count > 1 ? count - 1 : null);
+        return true;
+    }
+
+    private void dispatchSafely() {
+        try {
+            dispatch();
+        } catch (Exception e) {
+            log.error("Leaderboard stream dispatch failed: {}", e.getMessage());
+        }
+    }
+
+    private void dispatch() {
+        List<LeaderboardCategory> changed = new ArrayList<>();
+        for (LeaderboardCategory category : LeaderboardCategory.values()) {
+            long version = leaderboardIndex.version(category);
+            if (!Objects.equals(dispatchedVersions.put(category, version), version)) {
+                changed.add(category);
+            }
+        }
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+
+        // Subscribers watching the same window share one read per tick
+        Map<Window, List<LeaderboardEntry>> windows = new HashMap<>();
+        int totalPlayers = -1;
+        for (Subscription subscription : subscriptions) {
+            boolean windowChanged = changed.contains(subscription.category);
+            if (subscription.sending.get()) {
+                if (windowChanged) {
+                    subscription.behind = true;
+                }
+                dropIfStuck(subscription);
+                continue;
+            }
+            if (!windowChanged && !subscription.behind) {
+                continue;
+            }
+            subscription.behind = false;
+
+            Window window = new Window(subscription.category, subscription.fromRank, subscription.toRank);
+            List<LeaderboardEntry> entries = windows.computeIfAbsent(window, this::loadWindow);
+            List<LeaderboardEntry> changes = diff(subscription.lastEntries, entries);
+            if (!changes.isEmpty() || entries.size() != subscription.lastEntries.size()) {
+                if (totalPlayers < 0) {
+                    totalPlayers = leaderboardService.getTotalPlayers();
+                }
+                subscription.sending.set(true);
+                send(subscription, "diff", entries, changes, totalPlayers);
+            }
+        }
+    }
+
+    private void keepAlive() {
+        for (Subscription subscription : subscriptions) {
+            // A write in flight keeps the connection alive already
+            if (subscription.sending.compareAndSet(false, true)) {
+                write(subscription, SseEmitter.event().comment("keep-alive"), null);
+            }
+        }
+    }
+
+    private void dropIfStuck(Subscription subscription) {
+        if (System.nanoTime() - subscription.sendStartedNanos < TimeUnit.MILLISECONDS.toNanos(maxSendMillis)) {
+            return;
+        }
+        if (remove(subscription)) {
+            dropped.increment();
+            log.debug("Dropping leaderboard subscriber whose write has been stuck for over {} ms", maxSendMillis);
+            subscription.emitter.complete();
+        }
+    }
+
+    private List<LeaderboardEntry> loadWindow(Window window) {
+        return leaderboardService.getEntries(
+                window.category(), window.fromRank() - 1, window.toRank() - window.fromRank() + 1);
+    }
+
+    private static List<LeaderboardEntry> diff(List<LeaderboardEntry> previous, List<LeaderboardEntry> current) {
+        List<LeaderboardEntry> changes = new ArrayList<>();
+        for (int i = 0; i < current.size(); i++) {
+            if (i >= previous.size() || !previous.get(i).equals(current.get(i))) {
+                changes.add(current.get(i));
+            }
+        }
+        return changes;
+    }
+
+    // Callers have set the subscription's sending flag
+    private void send(Subscription subscription, String eventName,
+                      List<LeaderboardEntry> window, List<LeaderboardEntry> entries, int totalPlayers) {
+        LeaderboardStreamEvent event = LeaderboardStreamEvent.builder()
+                .category(subscription.category.name())
+                .fromRank(subscription.fromRank)
+                .toRank(subscription.toRank)
+                .size(window.size())
+                .totalPlayers(totalPlayers)
+                .entries(entries)
+                .build();
+        write(subscription, SseEmitter.event().name(eventName).data(event), window);
+    }
+
+    // Hands the write to the send pool; the window, if any, becomes the subscriber's last one once written
+    private void write(Subscription subscription, SseEmitter.SseEventBuilder event, List<LeaderboardEntry> window) {
+        subscription.sendStartedNanos = System.nanoTime();
+        try {
+            sender.execute(() -> {
+                try {
+                    subscription.emitter.send(event);
+                    if (window != null) {
+                        subscription.lastEntries = window;
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    remove(subscription);
+                } finally {
+                    subscription.sending.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Only when shutting down; the next tick tries again with a fresh diff
+            subscription.behind = true;
+            subscription.sending.set(false);
+        }
+    }
+}
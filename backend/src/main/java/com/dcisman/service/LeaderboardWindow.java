@@ -0,0 +1,51 @@
+package com.dcisman.service;
+
+import com.dcisman.exception.BadRequestException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Time span a leaderboard covers. Windows follow the server's calendar: days
+ * start at midnight, weeks on Monday and months on the 1st.
+ */
+public enum LeaderboardWindow {
+    ALL_TIME("all-time"),
+    DAILY("daily"),
+    WEEKLY("weekly"),
+    MONTHLY("monthly");
+
+    private final String slug;
+
+    LeaderboardWindow(String slug) {
+        this.slug = slug;
+    }
+
+    public String getSlug() {
+        return slug;
+    }
+
+    /**
+     * First day of the window containing {@code time}, or {@code null} for all-time.
+     */
+    public LocalDate startOf(LocalDateTime time) {
+        LocalDate date = time.toLocalDate();
+        return switch (this) {
+            case ALL_TIME -> null;
+            case DAILY -> date;
+            case WEEKLY -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTHLY -> date.withDayOfMonth(1);
+        };
+    }
+
+    public static LeaderboardWindow fromSlug(String slug) {
+        for (LeaderboardWindow window : values()) {
+            if (window.slug.equalsIgnoreCase(slug) || window.name().equalsIgnoreCase(slug)) {
+                return window;
+            }
+        }
+        throw new BadRequestException("Unknown leaderboard window: " + slug);
+    }
+}
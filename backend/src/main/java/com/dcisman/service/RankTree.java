@@ -0,0 +1,217 @@
+package com.dcisman.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Order-statistic treap keyed by (value DESC, userId ASC). Every node tracks the
+ * size of its subtree, so inserts, removals, rank lookups and positional reads
+ * are all O(log n). Not thread-safe; callers guard it with their own lock.
+ */
+final class RankTree {
+
+    record Entry(int value, long userId) {
+    }
+
+    private static final class Node {
+        final int value;
+        final long userId;
+        final int priority;
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(int value, long userId, int priority) {
+            this.value = value;
+            this.userId = userId;
+            this.priority = priority;
+        }
+    }
+
+    private final SplittableRandom random = new SplittableRandom();
+    private Node root;
+
+    int size() {
+        return size(root);
+    }
+
+    void clear() {
+        root = null;
+    }
+
+    void insert(int value, long userId) {
+        root = insert(root, new Node(value, userId, random.nextInt()));
+    }
+
+    boolean remove(int value, long userId) {
+        int before = size(root);
+        root = remove(root, value, userId);
+        return size(root) < before;
+    }
+
+    /**
+     * Number of keys ordered strictly ahead of (value, userId). For a key that is
+     * in the tree this is its zero-based position; otherwise it is the position
+     * the key would be inserted at.
+     */
+    int countAhead(int value, long userId) {
+        int ahead = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(value, userId, node);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp == 0) {
+                return ahead + size(node.left);
+            } else {
+                ahead += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return ahead;
+    }
+
+    /**
+     * Returns up to {@code limit} entries in rank order, starting at zero-based
+     * position {@code offset}. Empty when the offset is negative or past the end.
+     */
+    List<Entry> range(int offset, int limit) {
+        int size = size(root);
+        if (offset < 0 || limit <= 0 || offset >= size) {
+            return List.of();
+        }
+        List<Entry> out = new ArrayList<>(Math.min(limit, size - offset));
+        collect(root, offset, limit, out);
+        return out;
+    }
+
+    private void collect(Node node, int skip, int limit, List<Entry> out) {
+        if (node == null || out.size() >= limit) {
+            return;
+        }
+        int leftSize = size(node.left);
+        if (skip < leftSize) {
+            collect(node.left, skip, limit, out);
+        }
+        if (out.size() >= limit) {
+            return;
+        }
+        if (skip <= leftSize) {
+            out.add(new Entry(node.value, node.userId));
+        }
+        collect(node.right, Math.max(0, skip - leftSize - 1), limit, out);
+    }
+
+    private Node insert(Node node, Node fresh) {
+        if (node == null) {
+            return fresh;
+        }
+        if (fresh.priority > node.priority) {
+            split(node, fresh.value, fresh.userId, fresh);
+            update(fresh);
+            return fresh;
+        }
+        if (compare(fresh.value, fresh.userId, node) < 0) {
+            node.left = insert(node.left, fresh);
+        } else {
+            node.right = insert(node.right, fresh);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node remove(Node node, int value, long userId) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(value, userId, node);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = remove(node.left, value, userId);
+        } else {
+            node.right = remove(node.right, value, userId);
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Splits {@code node} around the key and hangs the halves off {@code target}:
+     * keys ahead of the split key go left, the rest go right.
+     */
+    private void split(Node node, int value, long userId, Node target) {
+        Node leftRoot = null;
+        Node rightRoot = null;
+        Node leftTail = null;
+        Node rightTail = null;
+        List<Node> touched = new ArrayList<>();
+
+        while (node != null) {
+            touched.add(node);
+            if (compare(value, userId, node) > 0) {
+                if (leftTail == null) {
+                    leftRoot = node;
+                } else {
+                    leftTail.right = node;
+                }
+                leftTail = node;
+                node = node.right;
+            } else {
+                if (rightTail == null) {
+                    rightRoot = node;
+                } else {
+                    rightTail.left = node;
+                }
+                rightTail = node;
+                node = node.left;
+            }
+        }
+        if (leftTail != null) {
+            leftTail.right = null;
+        }
+        if (rightTail != null) {
+            rightTail.left = null;
+        }
+        for (int i = touched.size() - 1; i >= 0; i--) {
+            update(touched.get(i));
+        }
+
+        target.left = leftRoot;
+        target.right = rightRoot;
+    }
+
+    private Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static int compare(int value, long userId, Node node) {
+        if (value != node.value) {
+            return value > node.value ? -1 : 1;
+        }
+        return Long.compare(userId, node.userId);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+}
@@ -0,0 +1,253 @@
+package com.dcisman.service;
+
+import com.dcisman.dto.StatsDistributionResponse;
+import com.dcisman.dto.StatsPercentileResponse;
+import com.dcisman.event.UserStatsUpdatedEvent;
+import com.dcisman.exception.BadRequestException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Distribution of every player's stats, one {@link ValueHistogram} per
+ * {@link LeaderboardCategory}. Built from {@code user_stats} at startup and
+ * moved along with committed stats updates, so "you beat N% of players" and
+ * percentile reads are a scan of a few thousand counters instead of a
+ * {@code COUNT(*)} over the table.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StatsDistributionService {
+
+    private static final String LOAD_SQL =
+            "SELECT user_id, highest_score, highest_level_reached, total_ghosts_eaten FROM user_stats";
+
+    private static final int MAX_BUCKETS = 100;
+    private static final double[] DEFAULT_PERCENTILES = {50, 75, 90, 99};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${stats.distribution.significant-digits:2}")
+    private int significantDigits;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<LeaderboardCategory, ValueHistogram> histograms = new EnumMap<>(LeaderboardCategory.class);
+    // Each player's recorded values, needed to move them out of their old bucket
+    private final Map<Long, int[]> recorded = new HashMap<>();
+    // Updates received while load() reads user_stats, replayed onto the new histograms; null otherwise
+    private List<UserStatsUpdatedEvent> missedDuringLoad;
+
+    /**
+     * Builds the histograms from {@code user_stats} and swaps them in. Updates
+     * committed after the read started are replayed onto the new histograms
+     * before the swap, so a reload never drops one.
+     */
+    @PostConstruct
+    public void load() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            missedDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<LeaderboardCategory, ValueHistogram> loaded = new EnumMap<>(LeaderboardCategory.class);
+        for (LeaderboardCategory category : LeaderboardCategory.values()) {
+            loaded.put(category, new ValueHistogram(significantDigits));
+        }
+        Map<Long, int[]> values = new HashMap<>();
+
+        try {
+            // Streamed row by row so a large table is never held as entities
+            jdbcTemplate.query(connection -> StreamingStatements.prepare(connection, LOAD_SQL), rs -> {
+                int[] row = new int[LeaderboardCategory.values().length];
+                row[LeaderboardCategory.HIGH_SCORE.ordinal()] = rs.getInt("highest_score");
+                row[LeaderboardCategory.HIGHEST_LEVEL.ordinal()] = rs.getInt("highest_level_reached");
+                row[LeaderboardCategory.TOTAL_GHOSTS.ordinal()] = rs.getInt("total_ghosts_eaten");
+                for (LeaderboardCategory category : LeaderboardCategory.values()) {
+                    loaded.get(category).record(row[category.ordinal()]);
+                }
+                values.put(rs.getLong("user_id"), row);
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                missedDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            histograms.clear();
+            histograms.putAll(loaded);
+            recorded.clear();
+            recorded.putAll(values);
+            replayed = missedDuringLoad.size();
+            for (UserStatsUpdatedEvent event : missedDuringLoad) {
+                apply(event);
+            }
+            missedDuringLoad = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Loaded stats distribution for {} players in {} ms ({} updates replayed)",
+                values.size(), System.currentTimeMillis() - start, replayed);
+    }
+
+    /**
+     * Share of players, other than {@code userId}, whose value in the category
+     * is below {@code value}. Accurate to one histogram bucket.
+     */
+    public StatsPercentileResponse getPercentile(LeaderboardCategory category, int value, Long userId) {
+        if (value < 0) {
+            throw new BadRequestException("Value must not be negative");
+        }
+
+        long total;
+        long below;
+        lock.readLock().lock();
+        try {
+            ValueHistogram histogram = histograms.get(category);
+            total = histogram.totalCount();
+            below = histogram.countBelow(value);
+            int[] own = userId != null ? recorded.get(userId) : null;
+            if (own != null) {
+                total--;
+                if (histogram.isBelow(own[category.ordinal()], value)) {
+                    below--;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return StatsPercentileResponse.builder()
+                .category(category.name())
+                .value(value)
+                .totalPlayers(total)
+                .playersBelow(below)
+                .percentile(total > 0 ? Math.round(1000.0 * below / total) / 10.0 : null)
+                .build();
+    }
+
+    /**
+     * The category's values regrouped into {@code bucketCount} equal-width buckets
+     * from 0 to the highest value, plus the requested percentiles (default p50,
+     * p75, p90 and p99).
+     */
+    public StatsDistributionResponse getDistribution(LeaderboardCategory category, int bucketCount,
+                                                     List<Double> percentiles) {
+        if (bucketCount < 1 || bucketCount > MAX_BUCKETS) {
+            throw new BadRequestException("Bucket count must be between 1 and " + MAX_BUCKETS);
+        }
+        double[] requested = percentiles == null || percentiles.isEmpty()
+                ? DEFAULT_PERCENTILES
+                : percentiles.stream().mapToDouble(Double::doubleValue).toArray();
+        for (double percentile : requested) {
+            if (percentile < 0 || percentile > 100) {
+                throw new BadRequestException("Percentiles must be between 0 and 100");
+            }
+        }
+
+        long total;
+        int max;
+        long[] counts;
+        Map<String, Integer> values = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            ValueHistogram histogram = histograms.get(category);
+            total = histogram.totalCount();
+            max = histogram.max();
+            counts = histogram.linearCounts(max, bucketCount);
+            for (double percentile : requested) {
+                values.put(percentileKey(percentile), histogram.valueAtPercentile(percentile));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        long width = Math.max(1, ((long) max + bucketCount) / bucketCount);
+        List<StatsDistributionResponse.Bucket> buckets = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            long from = i * width;
+            long to = i == bucketCount - 1 ? Math.max(max, from) : from + width - 1;
+            buckets.add(new StatsDistributionResponse.Bucket(
+                    (int) Math.min(Integer.MAX_VALUE, from), (int) Math.min(Integer.MAX_VALUE, to), counts[i]));
+        }
+
+        return StatsDistributionResponse.builder()
+                .category(category.name())
+                .totalPlayers(total)
+                .buckets(buckets)
+                .percentiles(values)
+                .lastUpdated(LocalDateTime.now())
+                .build();
+    }
+
+    @TransactionalEventListener
+    public void onStatsUpdated(UserStatsUpdatedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (missedDuringLoad != null) {
+                missedDuringLoad.add(event);
+            }
+            if (!histograms.isEmpty()) {
+                apply(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Callers hold the write lock
+    private void apply(UserStatsUpdatedEvent event) {
+        int[] values = recorded.get(event.userId());
+        if (values == null) {
+            values = new int[LeaderboardCategory.values().length];
+            for (LeaderboardCategory category : LeaderboardCategory.values()) {
+                values[category.ordinal()] = category.valueOf(event);
+                histograms.get(category).record(values[category.ordinal()]);
+            }
+            recorded.put(event.userId(), values);
+            return;
+        }
+
+        for (LeaderboardCategory category : LeaderboardCategory.values()) {
+            int current = values[category.ordinal()];
+            // Stats only grow, so out-of-order events must not move a player back
+            int value = Math.max(current, category.valueOf(event));
+            if (value != current) {
+                ValueHistogram histogram = histograms.get(category);
+                histogram.remove(current);
+                histogram.record(value);
+                values[category.ordinal()] = value;
+            }
+        }
+    }
+
+    private static String percentileKey(double percentile) {
+        return percentile == Math.rint(percentile)
+                ? "p" + (long) percentile
+                : "p" + percentile;
+    }
+}
@@ -0,0 +1,211 @@
+package com.dcisman.service;
+
+import com.dcisman.entity.GameSession;
+import com.dcisman.event.GameSessionEndedEvent;
+import com.dcisman.repository.GameSessionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies ended sessions to {@code user_stats} off the request path. Sessions
+ * are routed to a bounded queue by user id, so one player's sessions are always
+ * applied in order by the same worker, and each worker folds whatever has queued
+ * up into a single transaction. Durability comes from the session row itself:
+ * its {@code stats_applied} flag is only set when its stats are written, and a
+ * periodic sweep re-queues any ended session that is still unapplied, whether it
+ * was dropped by a full queue, a failed batch or a restart.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StatsProjectionService {
+
+    private final UserStatsService userStatsService;
+    private final GameSessionRepository gameSessionRepository;
+
+    @Value("${stats-projection.async:true}")
+    private boolean async;
+
+    @Value("${stats-projection.partitions:4}")
+    private int partitionCount;
+
+    @Value("${stats-projection.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${stats-projection.batch-size:500}")
+    private int batchSize;
+
+    @Value("${stats-projection.sweep-batch-size:1000}")
+    private int sweepBatchSize;
+
+    private final List<Partition> partitions = new ArrayList<>();
+    // Sessions queued or in a batch right now, so the sweep does not queue them twice
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private volatile long lastAppliedLagMillis;
+
+    private record Queued(GameSessionEndedEvent session, long enqueuedAt) {
+    }
+
+    private final class Partition implements Runnable {
+        final BlockingQueue<Queued> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final Thread thread;
+
+        Partition(int index) {
+            thread = new Thread(this, "stats-projection-" + index);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Queued> batch = new ArrayList<>(batchSize);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                queue.drainTo(batch, batchSize - 1);
+                applyBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!async) {
+            log.info("Stats projection is synchronous, stats are applied inside endSession");
+            return;
+        }
+        for (int i = 0; i < partitionCount; i++) {
+            Partition partition = new Partition(i);
+            partitions.add(partition);
+            partition.thread.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Anything still queued stays unapplied in the database and is swept after restart
+        partitions.forEach(partition -> partition.thread.interrupt());
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    @TransactionalEventListener
+    public void onSessionEnded(GameSessionEndedEvent event) {
+        if (async) {
+            enqueue(event);
+        }
+    }
+
+    @Scheduled(
+        fixedDelayString = "${stats-projection.sweep-interval-ms:30000}",
+        initialDelayString = "${stats-projection.sweep-initial-delay-ms:5000}"
+    )
+    public void sweep() {
+        if (!async) {
+            return;
+        }
+        try {
+            List<GameSessionEndedEvent> unapplied = gameSessionRepository.findUnappliedEndedSessions(
+                GameSession.Status.IN_PROGRESS, PageRequest.of(0, sweepBatchSize));
+            int queued = 0;
+            for (GameSessionEndedEvent session : unapplied) {
+                if (!pending.contains(session.sessionId()) && enqueue(session)) {
+                    queued++;
+                }
+            }
+            if (queued > 0) {
+                log.info("Re-queued {} ended sessions with unapplied stats", queued);
+            }
+        } catch (Exception e) {
+            log.error("Stats projection sweep failed: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        List<Integer> depths = new ArrayList<>(partitions.size());
+        long now = System.currentTimeMillis();
+        long oldest = now;
+        for (Partition partition : partitions) {
+            depths.add(partition.queue.size());
+            Queued head = partition.queue.peek();
+            if (head != null) {
+                oldest = Math.min(oldest, head.enqueuedAt());
+            }
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("async", async);
+        stats.put("queueDepth", depths.stream().mapToInt(Integer::intValue).sum());
+        stats.put("partitionDepths", depths);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("oldestQueuedMillis", now - oldest);
+        stats.put("lastAppliedLagMillis", lastAppliedLagMillis);
+        stats.put("appliedSessions", applied.get());
+        stats.put("batches", batches.get());
+        stats.put("failedBatches", failedBatches.get());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+
+    private boolean enqueue(GameSessionEndedEvent session) {
+        if (!pending.add(session.sessionId())) {
+            return false;
+        }
+        Partition partition = partitions.get((int) Math.floorMod(session.userId(), (long) partitions.size()));
+        if (partition.queue.offer(new Queued(session, System.currentTimeMillis()))) {
+            return true;
+        }
+        // Full: the session stays unapplied and the next sweep picks it up
+        pending.remove(session.sessionId());
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    private void applyBatch(List<Queued> batch) {
+        List<GameSessionEndedEvent> sessions = new ArrayList<>(batch.size());
+        for (Queued queued : batch) {
+            sessions.add(queued.session());
+        }
+
+        try {
+            applied.addAndGet(userStatsService.applyEndedSessions(sessions));
+            batches.incrementAndGet();
+            lastAppliedLagMillis = System.currentTimeMillis() - batch.get(0).enqueuedAt();
+        } catch (Exception e) {
+            failedBatches.incrementAndGet();
+            log.error("Failed to apply stats for {} ended sessions, will retry on the next sweep: {}",
+                batch.size(), e.getMessage());
+        } finally {
+            for (GameSessionEndedEvent session : sessions) {
+                pending.remove(session.sessionId());
+            }
+        }
+    }
+}
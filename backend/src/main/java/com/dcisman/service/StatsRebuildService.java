@@ -0,0 +1,326 @@
+package com.dcisman.service;
+
+import com.dcisman.dto.StatsRebuildResponse;
+import com.dcisman.exception.BadRequestException;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Recomputes {@code user_stats} from {@code game_sessions}. User ids are split
+ * into ranges that are aggregated in parallel on a fork-join pool, one GROUP BY
+ * per range, and compared with the stored rows. A dry run only reports the
+ * differences; otherwise each range is corrected in one transaction with a
+ * batched upsert.
+ *
+ * <p>Only sessions whose {@code stats_applied} flag is set are counted, since
+ * those are exactly the ones the stats projection has already added. That
+ * includes sessions abandoned by starting a new game; stats from before they
+ * were counted are brought in line by
+ * {@code migration_backfill_abandoned_session_stats.sql}. When
+ * correcting, a range's stats rows are locked before its sessions are read, so
+ * a projection batch that commits concurrently either lands before the read
+ * or waits and adds its deltas on top of the corrected row.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StatsRebuildService {
+
+    private static final String[] COLUMNS = {
+        "highest_score", "total_ghosts_eaten", "longest_time_played", "total_power_ups_used",
+        "highest_level_reached", "total_games_played", "total_games_completed"
+    };
+
+    private static final String[] FIELDS = {
+        "highestScore", "totalGhostsEaten", "longestTimePlayed", "totalPowerUpsUsed",
+        "highestLevelReached", "totalGamesPlayed", "totalGamesCompleted"
+    };
+
+    private static final String EXPECTED_SQL =
+        "SELECT user_id, MAX(score), SUM(ghosts_eaten), MAX(duration_seconds), SUM(power_ups_used), " +
+        "MAX(level_reached), COUNT(*), SUM(CASE WHEN status = 'COMPLETED' THEN 1 ELSE 0 END) " +
+        "FROM game_sessions WHERE user_id BETWEEN ? AND ? AND status <> 'IN_PROGRESS' AND stats_applied = TRUE " +
+        "GROUP BY user_id";
+
+    private static final String ACTUAL_SQL =
+        "SELECT user_id, " + String.join(", ", COLUMNS) + " FROM user_stats WHERE user_id BETWEEN ? AND ?";
+
+    private static final String LOCK_SQL =
+        "SELECT user_id FROM user_stats WHERE user_id BETWEEN ? AND ? FOR UPDATE";
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO user_stats (user_id, " + String.join(", ", COLUMNS) + ", created_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW()) ON DUPLICATE KEY UPDATE " +
+        Arrays.stream(COLUMNS).map(c -> c + " = VALUES(" + c + ")").reduce((a, b) -> a + ", " + b).orElseThrow() +
+        ", updated_at = NOW()";
+
+    private static final int MAX_REPORTED_DIFFS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LeaderboardIndex leaderboardIndex;
+    private final StatsDistributionService statsDistributionService;
+
+    @Value("${stats-rebuild.parallelism:4}")
+    private int parallelism;
+
+    @Value("${stats-rebuild.range-size:2000}")
+    private int rangeSize;
+
+    private final AtomicReference<Job> current = new AtomicReference<>();
+    private ForkJoinPool pool;
+
+    private final class Job {
+        final boolean dryRun;
+        final int totalRanges;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final long startNanos = System.nanoTime();
+        final AtomicInteger completedRanges = new AtomicInteger();
+        final AtomicLong usersChecked = new AtomicLong();
+        final AtomicLong usersDiffering = new AtomicLong();
+        final AtomicLong usersCorrected = new AtomicLong();
+        final AtomicLong usersOverflowing = new AtomicLong();
+        final AtomicLong sessionsScanned = new AtomicLong();
+        final ConcurrentLinkedQueue<StatsRebuildResponse.UserDiff> diffs = new ConcurrentLinkedQueue<>();
+        final ConcurrentLinkedQueue<Long> overflowing = new ConcurrentLinkedQueue<>();
+        volatile String status = "RUNNING";
+        volatile String error;
+        volatile LocalDateTime finishedAt;
+        volatile long elapsedMillis;
+
+        Job(boolean dryRun, int totalRanges) {
+            this.dryRun = dryRun;
+            this.totalRanges = totalRanges;
+        }
+
+        StatsRebuildResponse toResponse() {
+            long elapsed = finishedAt != null ? elapsedMillis : (System.nanoTime() - startNanos) / 1_000_000;
+            return StatsRebuildResponse.builder()
+                .status(status)
+                .dryRun(dryRun)
+                .totalRanges(totalRanges)
+                .completedRanges(completedRanges.get())
+                .usersChecked(usersChecked.get())
+                .usersDiffering(usersDiffering.get())
+                .usersCorrected(usersCorrected.get())
+                .usersOverflowing(usersOverflowing.get())
+                .sessionsScanned(sessionsScanned.get())
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .elapsedMillis(elapsed)
+                .error(error)
+                .diffs(new ArrayList<>(diffs))
+                .overflowingUserIds(new ArrayList<>(overflowing))
+                .build();
+        }
+    }
+
+    // Splits [from, to] in half until a range holds at most rangeSize user ids
+    private final class RangeTask extends RecursiveAction {
+        final Job job;
+        final long from;
+        final long to;
+
+        RangeTask(Job job, long from, long to) {
+            this.job = job;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from + 1 <= rangeSize) {
+                if (job.dryRun) {
+                    processRange(job, from, to);
+                } else {
+                    transactionTemplate.executeWithoutResult(status -> processRange(job, from, to));
+                }
+                job.completedRanges.incrementAndGet();
+                return;
+            }
+            long mid = from + (to - from) / 2;
+            invokeAll(new RangeTask(job, from, mid), new RangeTask(job, mid + 1, to));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    public synchronized StatsRebuildResponse start(boolean dryRun) {
+        Job running = current.get();
+        if (running != null && "RUNNING".equals(running.status)) {
+            throw new BadRequestException("A stats rebuild is already running");
+        }
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+
+        Long minId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Long.class);
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class);
+        long from = minId != null ? minId : 1;
+        long to = maxId != null ? maxId : 0;
+        int totalRanges = to < from ? 0 : countLeaves(from, to);
+
+        Job job = new Job(dryRun, totalRanges);
+        current.set(job);
+        log.info("Starting stats rebuild (dryRun={}) over user ids {}..{} in {} ranges", dryRun, from, to, totalRanges);
+
+        pool.execute(() -> run(job, from, to));
+        return job.toResponse();
+    }
+
+    public StatsRebuildResponse getStatus() {
+        Job job = current.get();
+        if (job == null) {
+            return StatsRebuildResponse.builder().status("IDLE").build();
+        }
+        return job.toResponse();
+    }
+
+    private void run(Job job, long from, long to) {
+        try {
+            if (to >= from) {
+                pool.invoke(new RangeTask(job, from, to));
+            }
+            if (!job.dryRun && job.usersCorrected.get() > 0) {
+                // The index only ever raises values, so corrections downwards need a reload;
+                // updates committed while it reads are replayed before the swap
+                leaderboardIndex.load();
+                statsDistributionService.load();
+            }
+            if (job.usersOverflowing.get() > 0) {
+                job.error = job.usersOverflowing.get() + " users have stats that overflow user_stats and were not checked";
+            }
+            job.status = "COMPLETED";
+        } catch (Exception e) {
+            job.status = "FAILED";
+            job.error = e.getMessage();
+            log.error("Stats rebuild failed: {}", e.getMessage());
+        } finally {
+            job.elapsedMillis = (System.nanoTime() - job.startNanos) / 1_000_000;
+            job.finishedAt = LocalDateTime.now();
+            log.info("Stats rebuild {} in {} ms: {} users checked, {} differing, {} corrected, {} overflowing",
+                job.status, job.elapsedMillis, job.usersChecked.get(), job.usersDiffering.get(),
+                job.usersCorrected.get(), job.usersOverflowing.get());
+        }
+    }
+
+    private void processRange(Job job, long from, long to) {
+        if (!job.dryRun) {
+            jdbcTemplate.query(LOCK_SQL, rs -> { }, from, to);
+        }
+
+        Map<Long, int[]> expected = new HashMap<>();
+        Set<Long> overflowing = new HashSet<>();
+        jdbcTemplate.query(EXPECTED_SQL, rs -> {
+            long userId = rs.getLong(1);
+            job.sessionsScanned.addAndGet(rs.getLong(7));
+            int[] values = new int[COLUMNS.length];
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = Math.toIntExact(rs.getLong(i + 2));
+                }
+            } catch (ArithmeticException e) {
+                // A SUM past the column's range cannot be stored, so the row is reported, not corrected
+                overflowing.add(userId);
+                return;
+            }
+            expected.put(userId, values);
+        }, from, to);
+
+        Map<Long, int[]> actual = new HashMap<>();
+        jdbcTemplate.query(ACTUAL_SQL, rs -> {
+            int[] values = new int[COLUMNS.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = rs.getInt(i + 2);
+            }
+            actual.put(rs.getLong(1), values);
+        }, from, to);
+
+        Set<Long> userIds = new HashSet<>(expected.keySet());
+        userIds.addAll(actual.keySet());
+        userIds.addAll(overflowing);
+        job.usersChecked.addAndGet(userIds.size());
+        for (Long userId : overflowing) {
+            userIds.remove(userId);
+            reportOverflow(job, userId);
+        }
+
+        List<Object[]> corrections = new ArrayList<>();
+        int[] zero = new int[COLUMNS.length];
+        for (Long userId : userIds) {
+            int[] want = expected.getOrDefault(userId, zero);
+            int[] have = actual.get(userId);
+            if (have != null && Arrays.equals(want, have)) {
+                continue;
+            }
+            job.usersDiffering.incrementAndGet();
+            report(job, userId, want, have != null ? have : zero);
+
+            Object[] row = new Object[COLUMNS.length + 1];
+            row[0] = userId;
+            for (int i = 0; i < want.length; i++) {
+                row[i + 1] = want[i];
+            }
+            corrections.add(row);
+        }
+
+        if (!job.dryRun && !corrections.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, corrections);
+            job.usersCorrected.addAndGet(corrections.size());
+        }
+    }
+
+    private void report(Job job, Long userId, int[] expected, int[] actual) {
+        if (job.diffs.size() >= MAX_REPORTED_DIFFS) {
+            return;
+        }
+        List<StatsRebuildResponse.FieldDiff> fields = new ArrayList<>();
+        for (int i = 0; i < expected.length; i++) {
+            if (expected[i] != actual[i]) {
+                fields.add(new StatsRebuildResponse.FieldDiff(FIELDS[i], expected[i], actual[i]));
+            }
+        }
+        job.diffs.add(new StatsRebuildResponse.UserDiff(userId, fields));
+    }
+
+    private void reportOverflow(Job job, Long userId) {
+        job.usersOverflowing.incrementAndGet();
+        log.error("Stats of user {} overflow a user_stats column and were left unchanged", userId);
+        if (job.overflowing.size() < MAX_REPORTED_DIFFS) {
+            job.overflowing.add(userId);
+        }
+    }
+
+    private int countLeaves(long from, long to) {
+        if (to - from + 1 <= rangeSize) {
+            return 1;
+        }
+        long mid = from + (to - from) / 2;
+        return countLeaves(from, mid) + countLeaves(mid + 1, to);
+    }
+}
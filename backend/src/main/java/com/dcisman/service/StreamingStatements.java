@@ -0,0 +1,30 @@
+package com.dcisman.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Forward-only statements for reads that visit every row once.
+ */
+final class StreamingStatements {
+
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private StreamingStatements() {
+    }
+
+    /**
+     * Connector/J streams rows one at a time only for a fetch size of
+     * {@code Integer.MIN_VALUE}, which other drivers reject, so they get an
+     * ordinary batched fetch instead.
+     */
+    static PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(
+                sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        boolean mysql = "MySQL".equals(connection.getMetaData().getDatabaseProductName());
+        statement.setFetchSize(mysql ? Integer.MIN_VALUE : DEFAULT_FETCH_SIZE);
+        return statement;
+    }
+}
@@ -0,0 +1,205 @@
+package com.dcisman.service;
+
+import com.dcisman.entity.User;
+import com.dcisman.event.UserAccountStatusChangedEvent;
+import com.dcisman.event.UserProfileUpdatedEvent;
+import com.dcisman.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Size- and TTL-bounded cache of users, addressable by id, username and email.
+ * Entries are immutable {@link CachedUser} copies of the row, never the JPA
+ * entity, so every thread can share them. Writes go through the repository and
+ * evict the entry once they commit. A load that read the row while an eviction
+ * ran keeps its result to itself, so an update cannot be undone by a slower
+ * read of the old row.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCache {
+
+    private final UserRepository userRepository;
+
+    @Value("${user-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${user-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private Cache<Long, CachedUser> usersById;
+    private Cache<String, Long> idsByUsername;
+    private Cache<String, Long> idsByEmail;
+
+    // Moves on every eviction; a load only caches its row if no eviction ran while it read
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public record CachedUser(Long id, String username, String email, String passwordHash, String name,
+                             String idNumber, User.Role role, boolean active, LocalDateTime createdAt) {
+
+        public static CachedUser of(User user) {
+            return new CachedUser(user.getId(), user.getUsername(), user.getEmail(), user.getPasswordHash(),
+                    user.getName(), user.getIdNumber(), user.getRole(), Boolean.TRUE.equals(user.getIsActive()),
+                    user.getCreatedAt());
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        usersById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        idsByUsername = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        idsByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public Optional<CachedUser> findById(Long id) {
+        CachedUser cached = usersById.getIfPresent(id);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        return load(() -> userRepository.findById(id));
+    }
+
+    public Optional<CachedUser> findByUsername(String username) {
+        Long id = idsByUsername.getIfPresent(username);
+        CachedUser cached = id != null ? usersById.getIfPresent(id) : null;
+        if (cached != null && username.equals(cached.username())) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        return load(() -> userRepository.findByUsername(username));
+    }
+
+    public Optional<CachedUser> findByEmail(String email) {
+        Long id = idsByEmail.getIfPresent(email);
+        CachedUser cached = id != null ? usersById.getIfPresent(id) : null;
+        if (cached != null && email.equals(cached.email())) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        return load(() -> userRepository.findByEmail(email));
+    }
+
+    public Optional<CachedUser> findByUsernameOrEmail(String usernameOrEmail) {
+        return findByUsername(usernameOrEmail).or(() -> findByEmail(usernameOrEmail));
+    }
+
+    /**
+     * Evicts the user once the current transaction commits, or right away outside
+     * one. Evicting earlier would let a concurrent load cache the old row again.
+     */
+    public void evict(Long userId) {
+        afterCommit(() -> invalidate(userId));
+    }
+
+    public void evict(User user) {
+        Long userId = user.getId();
+        String username = user.getUsername();
+        String email = user.getEmail();
+        afterCommit(() -> {
+            invalidate(userId);
+            idsByUsername.invalidate(username);
+            idsByEmail.invalidate(email);
+        });
+    }
+
+    // Transactional listeners already run after the commit
+    @TransactionalEventListener
+    public void onProfileUpdated(UserProfileUpdatedEvent event) {
+        invalidate(event.userId());
+    }
+
+    @TransactionalEventListener
+    public void onAccountStatusChanged(UserAccountStatusChangedEvent event) {
+        invalidate(event.userId());
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("size", usersById.estimatedSize());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", ttlSeconds);
+        return stats;
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+
+    private Optional<CachedUser> load(Supplier<Optional<User>> loader) {
+        long seen = generation.get();
+        Optional<CachedUser> user = loader.get().map(CachedUser::of);
+        user.ifPresent(loaded -> put(loaded, seen));
+        return user;
+    }
+
+    // Runs in the same per-key compute as invalidate(), so an eviction is either seen here or comes after
+    private void put(CachedUser user, long seen) {
+        usersById.asMap().compute(user.id(), (id, cached) -> {
+            if (generation.get() != seen) {
+                return cached;
+            }
+            idsByUsername.put(user.username(), user.id());
+            idsByEmail.put(user.email(), user.id());
+            return user;
+        });
+    }
+
+    private void invalidate(Long userId) {
+        usersById.asMap().compute(userId, (id, cached) -> {
+            generation.incrementAndGet();
+            if (cached != null) {
+                idsByUsername.invalidate(cached.username());
+                idsByEmail.invalidate(cached.email());
+            }
+            return null;
+        });
+    }
+}
@@ -1,22 +1,37 @@
 package com.dcisman.service;
 
 import com.dcisman.dto.UserStatsResponse;
-import com.dcisman.entity.GameSession;
 import com.dcisman.entity.User;
 import com.dcisman.entity.UserStats;
+import com.dcisman.event.GameSessionEndedEvent;
 import com.dcisman.exception.ResourceNotFoundException;
+import com.dcisman.repository.GameSessionRepository;
+import com.dcisman.repository.UserRepository;
 import com.dcisman.repository.UserStatsRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed("dcisman.service")
 public class UserStatsService {
 
     private final UserStatsRepository userStatsRepository;
+    private final UserRepository userRepository;
+    private final GameSessionRepository gameSessionRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public UserStats getOrCreateUserStats(User user) {
@@ -36,52 +51,87 @@ public class UserStatsService {
                 });
     }
 
+    /**
+     * Adds ended sessions to their players' totals, exactly once each. Sessions
+     * are locked and re-checked first, so ones already counted by another batch
+     * are skipped, then each player gets one atomic upsert with the batch's
+     * combined deltas. Returns the number of sessions applied.
+     */
     @Transactional
-    public void updateStatsFromGameSession(User user, GameSession session) {
-        UserStats stats = getOrCreateUserStats(user);
-
-        if (session.getScore() != null && session.getScore() > stats.getHighestScore()) {
-            stats.setHighestScore(session.getScore());
-        }
-
-        if (session.getGhostsEaten() != null) {
-            stats.setTotalGhostsEaten(stats.getTotalGhostsEaten() + session.getGhostsEaten());
+    public int applyEndedSessions(List<GameSessionEndedEvent> sessions) {
+        if (sessions.isEmpty()) {
+            return 0;
         }
 
-        if (session.getDurationSeconds() != null && session.getDurationSeconds() > stats.getLongestTimePlayed()) {
-            stats.setLongestTimePlayed(session.getDurationSeconds());
+        Set<Long> unapplied = new HashSet<>(gameSessionRepository.lockUnappliedIds(
+                sessions.stream().map(GameSessionEndedEvent::sessionId).toList()));
+        if (unapplied.isEmpty()) {
+            return 0;
         }
 
-        if (session.getPowerUpsUsed() != null) {
-            stats.setTotalPowerUpsUsed(stats.getTotalPowerUpsUsed() + session.getPowerUpsUsed());
+        Map<Long, Totals> totalsByUser = new HashMap<>();
+        List<Long> appliedIds = new ArrayList<>(unapplied.size());
+        for (GameSessionEndedEvent session : sessions) {
+            // remove() also drops a session that appears twice in one batch
+            if (unapplied.remove(session.sessionId())) {
+                totalsByUser.computeIfAbsent(session.userId(), id -> new Totals()).add(session);
+                appliedIds.add(session.sessionId());
+            }
         }
 
-        if (session.getLevelReached() != null && session.getLevelReached() > stats.getHighestLevelReached()) {
-            stats.setHighestLevelReached(session.getLevelReached());
-        }
-
-        stats.setTotalGamesPlayed(stats.getTotalGamesPlayed() + 1);
-
-        if ("COMPLETED".equals(session.getStatus())) {
-            stats.setTotalGamesCompleted(stats.getTotalGamesCompleted() + 1);
-        }
-
-        userStatsRepository.save(stats);
-        log.info("Updated stats for user {}: score={}, level={}",
-                user.getUsername(), session.getScore(), session.getLevelReached());
+        totalsByUser.forEach((userId, totals) -> userStatsRepository.applyGameSessions(
+                userId,
+                totals.score,
+                totals.ghostsEaten,
+                totals.durationSeconds,
+                totals.powerUpsUsed,
+                totals.levelReached,
+                totals.games,
+                totals.completed));
+        gameSessionRepository.markStatsApplied(appliedIds);
+
+        userStatsRepository.findUpdatedEventsByUserIds(totalsByUser.keySet())
+                .forEach(eventPublisher::publishEvent);
+        log.debug("Applied {} ended sessions for {} players", appliedIds.size(), totalsByUser.size());
+        return appliedIds.size();
     }
 
+    // Reads project the response columns directly; no UserStats or User is loaded
+
     @Transactional(readOnly = true)
     public UserStatsResponse getUserStats(Long userId) {
-        UserStats stats = userStatsRepository.findByUserId(userId)
+        return userStatsRepository.findResponseByUserId(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User stats not found for user ID: " + userId));
-        return convertToDto(stats);
     }
 
     @Transactional
-    public UserStatsResponse getCurrentUserStats(User user) {
-        UserStats stats = getOrCreateUserStats(user);
-        return convertToDto(stats);
+    public UserStatsResponse getCurrentUserStats(Long userId) {
+        return userStatsRepository.findResponseByUserId(userId)
+                // A reference is enough to create the row; the user itself is never read here
+                .orElseGet(() -> convertToDto(getOrCreateUserStats(userRepository.getReferenceById(userId))));
+    }
+
+    // Combined deltas of one player's sessions within a batch
+    private static final class Totals {
+        int score;
+        int levelReached;
+        int durationSeconds;
+        int ghostsEaten;
+        int powerUpsUsed;
+        int games;
+        int completed;
+
+        void add(GameSessionEndedEvent session) {
+            score = Math.max(score, session.score());
+            levelReached = Math.max(levelReached, session.levelReached());
+            durationSeconds = Math.max(durationSeconds, session.durationSeconds());
+            ghostsEaten += session.ghostsEaten();
+            powerUpsUsed += session.powerUpsUsed();
+            games++;
+            if (session.completed()) {
+                completed++;
+            }
+        }
     }
 
     private UserStatsResponse convertToDto(UserStats stats) {
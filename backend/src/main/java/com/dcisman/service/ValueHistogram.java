@@ -0,0 +1,134 @@
+package com.dcisman.service;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of non-negative ints with fixed relative precision, laid out like
+ * HdrHistogram: small values get a bucket each, and every power of two above
+ * them is split into the same number of equal-width buckets. With
+ * two significant digits no bucket is wider than 1/128 of its lowest value,
+ * and the whole int range fits in about 3,000 counters. Not thread-safe;
+ * callers guard it with their own lock.
+ */
+final class ValueHistogram {
+
+    private final int subBucketBits;
+    private final int subBucketHalfCount;
+    private final long[] counts;
+    private long totalCount;
+
+    ValueHistogram(int significantDigits) {
+        if (significantDigits < 1 || significantDigits > 3) {
+            throw new IllegalArgumentException("Significant digits must be between 1 and 3");
+        }
+        long largestSingleUnit = 2 * (long) Math.pow(10, significantDigits);
+        this.subBucketBits = 64 - Long.numberOfLeadingZeros(largestSingleUnit - 1);
+        this.subBucketHalfCount = 1 << (subBucketBits - 1);
+        this.counts = new long[indexOf(Integer.MAX_VALUE) + 1];
+    }
+
+    long totalCount() {
+        return totalCount;
+    }
+
+    void clear() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+    }
+
+    void record(int value) {
+        counts[indexOf(value)]++;
+        totalCount++;
+    }
+
+    void remove(int value) {
+        counts[indexOf(value)]--;
+        totalCount--;
+    }
+
+    /**
+     * Values recorded in buckets wholly below the one {@code value} falls in, so
+     * within one bucket width of the exact number of smaller values.
+     */
+    long countBelow(int value) {
+        int index = indexOf(value);
+        long below = 0;
+        for (int i = 0; i < index; i++) {
+            below += counts[i];
+        }
+        return below;
+    }
+
+    /**
+     * Whether {@code value} falls in a lower bucket than {@code other}, which is
+     * what {@link #countBelow} counts.
+     */
+    boolean isBelow(int value, int other) {
+        return indexOf(value) < indexOf(other);
+    }
+
+    /**
+     * Highest value equivalent to the one at {@code percentile} (0 to 100), or 0 if
+     * the histogram is empty.
+     */
+    int valueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return highestEquivalent(i);
+            }
+        }
+        return highestEquivalent(counts.length - 1);
+    }
+
+    /**
+     * Highest value equivalent to the largest recorded one, or 0 if empty.
+     */
+    int max() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] > 0) {
+                return highestEquivalent(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Counts regrouped into {@code bucketCount} equal-width buckets covering
+     * {@code [0, upperBound]}. Each source bucket is assigned by its lowest value.
+     */
+    long[] linearCounts(int upperBound, int bucketCount) {
+        long[] linear = new long[bucketCount];
+        long width = Math.max(1, ((long) upperBound + bucketCount) / bucketCount);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                int bucket = (int) Math.min(bucketCount - 1, lowestEquivalent(i) / width);
+                linear[bucket] += counts[i];
+            }
+        }
+        return linear;
+    }
+
+    private int indexOf(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Histogram values must not be negative: " + value);
+        }
+        int shift = Math.max(0, (32 - Integer.numberOfLeadingZeros(value)) - subBucketBits);
+        return (shift << (subBucketBits - 1)) + (value >>> shift);
+    }
+
+    private int lowestEquivalent(int index) {
+        int shift = Math.max(0, index / subBucketHalfCount - 1);
+        return (index - (shift << (subBucketBits - 1))) << shift;
+    }
+
+    private int highestEquivalent(int index) {
+        int shift = Math.max(0, index / subBucketHalfCount - 1);
+        return (int) Math.min(Integer.MAX_VALUE, (long) lowestEquivalent(index) + (1L << shift) - 1);
+    }
+}
@@ -0,0 +1,359 @@
+package com.dcisman.service;
+
+import com.dcisman.dto.LeaderboardEntry;
+import com.dcisman.event.GameSessionEndedEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Daily, weekly and monthly rankings, aggregated from the sessions that ended in
+ * the current window. Each window keeps its own per-player aggregates and one
+ * {@link RankTree} per category, updated as sessions end. When a window rolls
+ * over its bucket is dropped and the new one starts empty.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WindowedLeaderboardIndex {
+
+    private static final String LOAD_SQL =
+            "SELECT id, user_id, score, level_reached, duration_seconds, ghosts_eaten, power_ups_used, status, " +
+            "ended_at FROM game_sessions WHERE status <> 'IN_PROGRESS' AND ended_at >= ?";
+
+    private static final int CATEGORIES = LeaderboardCategory.values().length;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LeaderboardIndex leaderboardIndex;
+    private final UserCache userCache;
+
+    @Value("${leaderboard.index.enabled:true}")
+    private boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<LeaderboardWindow, Bucket> buckets = new EnumMap<>(LeaderboardWindow.class);
+    private final AtomicLongArray versions = new AtomicLongArray(LeaderboardWindow.values().length * CATEGORIES);
+    private volatile boolean ready;
+    // Sessions ended while load() reads game_sessions, replayed onto the loaded buckets; null otherwise
+    private volatile List<GameSessionEndedEvent> missedDuringLoad;
+
+    private static final class Bucket {
+        final LocalDate start;
+        final Map<Long, int[]> values = new HashMap<>();
+        final Map<LeaderboardCategory, RankTree> trees = new EnumMap<>(LeaderboardCategory.class);
+
+        Bucket(LocalDate start) {
+            this.start = start;
+            for (LeaderboardCategory category : LeaderboardCategory.values()) {
+                trees.put(category, new RankTree());
+            }
+        }
+    }
+
+    /**
+     * Reads the sessions that ended in the current windows and swaps in the
+     * buckets built from them. Sessions that end while the query runs are kept
+     * aside and replayed afterwards, except those the query already counted:
+     * the totals in {@code TOTAL_GHOSTS} would otherwise include them twice.
+     */
+    @PostConstruct
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+
+        long begin = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            missedDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<LeaderboardWindow, Bucket> loaded = new EnumMap<>(LeaderboardWindow.class);
+        LocalDate earliest = null;
+        for (LeaderboardWindow window : windows()) {
+            Bucket bucket = new Bucket(window.startOf(now));
+            loaded.put(window, bucket);
+            if (earliest == null || bucket.start.isBefore(earliest)) {
+                earliest = bucket.start;
+            }
+        }
+
+        // Held only while loading, to recognise the missed sessions the query already saw
+        Set<Long> loadedSessionIds = new HashSet<>();
+        try {
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                GameSessionEndedEvent session = new GameSessionEndedEvent(
+                        rs.getLong("id"),
+                        rs.getLong("user_id"),
+                        rs.getInt("score"),
+                        rs.getInt("level_reached"),
+                        rs.getInt("duration_seconds"),
+                        rs.getInt("ghosts_eaten"),
+                        rs.getInt("power_ups_used"),
+                        "COMPLETED".equals(rs.getString("status")),
+                        rs.getTimestamp("ended_at").toLocalDateTime());
+                loadedSessionIds.add(session.sessionId());
+                apply(loaded, session);
+            }, Timestamp.valueOf(earliest.atStartOfDay()));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                missedDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        int replayed = 0;
+        lock.writeLock().lock();
+        try {
+            buckets.clear();
+            buckets.putAll(loaded);
+            for (GameSessionEndedEvent event : missedDuringLoad) {
+                if (loadedSessionIds.add(event.sessionId())) {
+                    apply(buckets, event);
+                    replayed++;
+                }
+            }
+            missedDuringLoad = null;
+            bumpAllVersions();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Loaded windowed leaderboards ({} players this month) in {} ms ({} sessions replayed)",
+                loaded.get(LeaderboardWindow.MONTHLY).values.size(), System.currentTimeMillis() - begin, replayed);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Number of players with at least one ended session in the current window.
+     */
+    public int size(LeaderboardWindow window) {
+        lock.readLock().lock();
+        try {
+            return buckets.get(window).values.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Entries at zero-based positions {@code [offset, offset + limit)} in rank order.
+     */
+    public List<LeaderboardEntry> page(LeaderboardWindow window, LeaderboardCategory category, int offset, int limit) {
+        List<RankTree.Entry> keys;
+        lock.readLock().lock();
+        try {
+            keys = buckets.get(window).trees.get(category).range(offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toEntries(keys, offset);
+    }
+
+    /**
+     * Up to {@code limit} entries ordered strictly after the key (value, userId).
+     */
+    public List<LeaderboardEntry> pageAfter(LeaderboardWindow window, LeaderboardCategory category,
+                                            int value, long userId, int limit) {
+        List<RankTree.Entry> keys;
+        int offset;
+        lock.readLock().lock();
+        try {
+            RankTree tree = buckets.get(window).trees.get(category);
+            offset = tree.countAhead(value, userId + 1);
+            keys = tree.range(offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toEntries(keys, offset);
+    }
+
+    /**
+     * The user's own entry plus up to {@code radius} entries on either side. Empty
+     * if the user has not finished a session in the current window.
+     */
+    public List<LeaderboardEntry> around(LeaderboardWindow window, LeaderboardCategory category,
+                                         Long userId, int radius) {
+        List<RankTree.Entry> keys;
+        int offset;
+        lock.readLock().lock();
+        try {
+            Bucket bucket = buckets.get(window);
+            int[] values = bucket.values.get(userId);
+            if (values == null) {
+                return List.of();
+            }
+            RankTree tree = bucket.trees.get(category);
+            int position = tree.countAhead(values[category.ordinal()], userId);
+            offset = Math.max(0, position - radius);
+            keys = tree.range(offset, position - offset + radius + 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toEntries(keys, offset);
+    }
+
+    /**
+     * Monotonic version of a window's category. It also moves when the window
+     * rolls over. Display names are versioned by {@link LeaderboardIndex}.
+     */
+    public long version(LeaderboardWindow window, LeaderboardCategory category) {
+        return versions.get(slot(window, category));
+    }
+
+    @TransactionalEventListener
+    public void onSessionEnded(GameSessionEndedEvent event) {
+        if (event.endedAt() == null || (!ready && missedDuringLoad == null)) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (missedDuringLoad != null) {
+                missedDuringLoad.add(event);
+            }
+            if (ready) {
+                apply(buckets, event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${leaderboard.windows.rollover-interval-ms:60000}")
+    public void rollover() {
+        if (!ready) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        lock.writeLock().lock();
+        try {
+            for (LeaderboardWindow window : windows()) {
+                LocalDate start = window.startOf(now);
+                if (start.isAfter(buckets.get(window).start)) {
+                    roll(buckets, window, start);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(Map<LeaderboardWindow, Bucket> target, GameSessionEndedEvent event) {
+        for (LeaderboardWindow window : windows()) {
+            Bucket bucket = target.get(window);
+            LocalDate start = window.startOf(event.endedAt());
+            if (start.isAfter(bucket.start)) {
+                // First session of a new window, ahead of the scheduled rollover
+                bucket = roll(target, window, start);
+            } else if (start.isBefore(bucket.start)) {
+                continue;
+            }
+            add(window, bucket, event);
+        }
+    }
+
+    private Bucket roll(Map<LeaderboardWindow, Bucket> target, LeaderboardWindow window, LocalDate start) {
+        Bucket previous = target.put(window, new Bucket(start));
+        log.info("Rolled {} leaderboard over to {}, dropping {} players from {}",
+                window.getSlug(), start, previous.values.size(), previous.start);
+        for (LeaderboardCategory category : LeaderboardCategory.values()) {
+            versions.incrementAndGet(slot(window, category));
+        }
+        return target.get(window);
+    }
+
+    private void add(LeaderboardWindow window, Bucket bucket, GameSessionEndedEvent event) {
+        long userId = event.userId();
+        int[] values = bucket.values.get(userId);
+        boolean fresh = values == null;
+        if (fresh) {
+            values = new int[CATEGORIES];
+            bucket.values.put(userId, values);
+        }
+        for (LeaderboardCategory category : LeaderboardCategory.values()) {
+            int current = values[category.ordinal()];
+            int value = category.merge(current, event);
+            if (!fresh && value == current) {
+                continue;
+            }
+            RankTree tree = bucket.trees.get(category);
+            if (!fresh) {
+                tree.remove(current, userId);
+            }
+            tree.insert(value, userId);
+            values[category.ordinal()] = value;
+            versions.incrementAndGet(slot(window, category));
+        }
+    }
+
+    private List<LeaderboardEntry> toEntries(List<RankTree.Entry> keys, int offset) {
+        List<LeaderboardEntry> entries = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            RankTree.Entry key = keys.get(i);
+            entries.add(describe(key.userId())
+                    .value(key.value())
+                    .rank(offset + i + 1)
+                    .build());
+        }
+        return entries;
+    }
+
+    // Players whose stats have not been projected yet are not in the all-time index
+    private LeaderboardEntry.LeaderboardEntryBuilder describe(long userId) {
+        LeaderboardEntry.LeaderboardEntryBuilder builder = leaderboardIndex.describe(userId);
+        if (builder != null) {
+            return builder;
+        }
+        Optional<UserCache.CachedUser> user = userCache.findById(userId);
+        return LeaderboardEntry.builder()
+                .userId(userId)
+                .username(user.map(UserCache.CachedUser::username).orElse(null))
+                .name(user.map(UserCache.CachedUser::name).orElse(null))
+                .idNumber(user.map(UserCache.CachedUser::idNumber).orElse(null));
+    }
+
+    private static List<LeaderboardWindow> windows() {
+        return List.of(LeaderboardWindow.DAILY, LeaderboardWindow.WEEKLY, LeaderboardWindow.MONTHLY);
+    }
+
+    private static int slot(LeaderboardWindow window, LeaderboardCategory category) {
+        return window.ordinal() * CATEGORIES + category.ordinal();
+    }
+
+    private void bumpAllVersions() {
+        for (int i = 0; i < versions.length(); i++) {
+            versions.incrementAndGet(i);
+        }
+    }
+}
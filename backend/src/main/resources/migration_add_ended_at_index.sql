@@ -0,0 +1,6 @@
+-- Migration: Add game session ended_at index
+-- Date: 2026-10-17
+-- Description: Daily, weekly and monthly leaderboards are loaded from the sessions ended since the window start
+
+ALTER TABLE game_sessions
+ADD INDEX idx_ended_at (ended_at);
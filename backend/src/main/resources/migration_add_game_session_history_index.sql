@@ -0,0 +1,6 @@
+-- Migration: Add game session history index
+-- Date: 2026-10-17
+-- Description: Game history pages filter by user and seek on (started_at, id), newest first
+
+ALTER TABLE game_sessions
+ADD INDEX idx_user_started (user_id, started_at, id);
@@ -0,0 +1,10 @@
+-- Migration: Add composite leaderboard indexes for keyset pagination
+-- Date: 2026-10-17
+-- Description: Leaderboards are ordered by (value DESC, user_id ASC) and paged with a cursor on
+-- that key, so each category needs an index covering both columns in that order
+
+ALTER TABLE user_stats
+DROP INDEX idx_highest_score,
+ADD INDEX idx_highest_score_user (highest_score DESC, user_id),
+ADD INDEX idx_highest_level_user (highest_level_reached DESC, user_id),
+ADD INDEX idx_total_ghosts_user (total_ghosts_eaten DESC, user_id);
@@ -0,0 +1,11 @@
+-- Migration: Track which ended game sessions have been added to user_stats
+-- Date: 2026-10-17
+-- Description: Stats are now applied asynchronously after a session ends. The flag is set in the
+-- same transaction as the user_stats upsert, so each session is counted exactly once
+
+ALTER TABLE game_sessions
+ADD COLUMN stats_applied BOOLEAN NOT NULL DEFAULT FALSE AFTER ended_at,
+ADD INDEX idx_stats_pending (stats_applied, id);
+
+-- Sessions ended before this migration were already counted synchronously
+UPDATE game_sessions SET stats_applied = TRUE WHERE status <> 'IN_PROGRESS';
@@ -0,0 +1,26 @@
+-- Migration: Count sessions abandoned by starting a new game in user_stats
+-- Date: 2026-10-17
+-- Description: Every ended session now counts towards user_stats, including sessions abandoned
+-- because the player started a new game, which were previously left out. Sessions ended before
+-- migration_add_stats_applied.sql cannot be told apart by how they were abandoned, so the stats
+-- of every player are recomputed from all of their ended sessions. Afterwards the stats rebuild
+-- (POST /api/admin/stats-rebuild) finds no differences. Run after migration_add_stats_applied.sql
+-- with the backend stopped, so no stats are applied in the meantime.
+
+INSERT INTO user_stats (user_id, highest_score, total_ghosts_eaten, longest_time_played,
+    total_power_ups_used, highest_level_reached, total_games_played, total_games_completed,
+    created_at, updated_at)
+SELECT user_id, MAX(score), SUM(ghosts_eaten), MAX(duration_seconds), SUM(power_ups_used),
+    MAX(level_reached), COUNT(*), SUM(CASE WHEN status = 'COMPLETED' THEN 1 ELSE 0 END), NOW(), NOW()
+FROM game_sessions
+WHERE status <> 'IN_PROGRESS' AND stats_applied = TRUE
+GROUP BY user_id
+ON DUPLICATE KEY UPDATE
+    highest_score = VALUES(highest_score),
+    total_ghosts_eaten = VALUES(total_ghosts_eaten),
+    longest_time_played = VALUES(longest_time_played),
+    total_power_ups_used = VALUES(total_power_ups_used),
+    highest_level_reached = VALUES(highest_level_reached),
+    total_games_played = VALUES(total_games_played),
+    total_games_completed = VALUES(total_games_completed),
+    updated_at = NOW();
@@ -102,3 +102,7 @@ INSERT INTO game_sessions (user_id, score, level_reached, duration_seconds, ghos
 (22, 31000, 9, 1180, 104, 21, 'COMPLETED', DATE_SUB(NOW(), INTERVAL 4 DAY), DATE_SUB(NOW(), INTERVAL 4 DAY)),
 (22, 29000, 8, 1130, 101, 20, 'COMPLETED', DATE_SUB(NOW(), INTERVAL 7 DAY), DATE_SUB(NOW(), INTERVAL 7 DAY)),
 (22, 27000, 7, 1080, 98, 19, 'ABANDONED', DATE_SUB(NOW(), INTERVAL 10 DAY), DATE_SUB(NOW(), INTERVAL 10 DAY));
+
+
+-- The user_stats rows above already include these sessions
+UPDATE game_sessions SET stats_applied = TRUE WHERE status <> 'IN_PROGRESS';
@@ -88,3 +88,7 @@ INSERT INTO game_sessions (user_id, score, level_reached, duration_seconds, ghos
 (12, 37000, 11, 1300, 121, 25, 'COMPLETED', DATE_SUB(NOW(), INTERVAL 5 DAY), DATE_SUB(NOW(), INTERVAL 5 DAY)),
 (12, 35000, 10, 1250, 118, 24, 'COMPLETED', DATE_SUB(NOW(), INTERVAL 8 DAY), DATE_SUB(NOW(), INTERVAL 8 DAY)),
 (12, 33000, 9, 1200, 115, 23, 'ABANDONED', DATE_SUB(NOW(), INTERVAL 11 DAY), DATE_SUB(NOW(), INTERVAL 11 DAY));
+
+
+-- The user_stats rows above already include these sessions
+UPDATE game_sessions SET stats_applied = TRUE WHERE status <> 'IN_PROGRESS';
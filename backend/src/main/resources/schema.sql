@@ -26,8 +26,12 @@ CREATE TABLE IF NOT EXISTS game_sessions (
     status ENUM('IN_PROGRESS', 'COMPLETED', 'ABANDONED') DEFAULT 'IN_PROGRESS',
     started_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     ended_at TIMESTAMP NULL,
+    stats_applied BOOLEAN NOT NULL DEFAULT FALSE,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
     INDEX idx_user_id (user_id),
+    INDEX idx_user_started (user_id, started_at, id),
+    INDEX idx_stats_pending (stats_applied, id),
+    INDEX idx_ended_at (ended_at),
     INDEX idx_score (score DESC),
     INDEX idx_started_at (started_at DESC)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -47,7 +51,9 @@ CREATE TABLE IF NOT EXISTS user_stats (
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
     INDEX idx_user_id (user_id),
-    INDEX idx_highest_score (highest_score DESC)
+    INDEX idx_highest_score_user (highest_score DESC, user_id),
+    INDEX idx_highest_level_user (highest_level_reached DESC, user_id),
+    INDEX idx_total_ghosts_user (total_ghosts_eaten DESC, user_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- Leaderboard table
@@ -0,0 +1,176 @@
+package com.dcisman.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the heartbeat, session read and leaderboard endpoints over HTTP and
+ * fails if any request issued more SQL statements than its {@link QueryBudget},
+ * as counted by {@link QueryBudgetInterceptor}. The load driver checks the same
+ * counter under load; this keeps a regression from getting past the build.
+ * With the in-memory index the leaderboards issue no queries at all, so they
+ * are checked once more against the database fallback.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "stats-projection.async=false")
+@ActiveProfiles("test")
+class QueryBudgetTest {
+
+    private static final int PLAYERS = 3;
+    private static final int HEARTBEATS = 5;
+
+    private static final List<String> LEADERBOARD_PATHS = List.of(
+        "/api/leaderboard",
+        "/api/leaderboard?page=1&pageSize=2",
+        "/api/leaderboard/high-score",
+        "/api/leaderboard/high-score?page=1&pageSize=2",
+        "/api/leaderboard/highest-level",
+        "/api/leaderboard/total-ghosts"
+    );
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void heartbeatSessionAndLeaderboardEndpointsStayWithinTheirBudgets() {
+        List<String> tokens = new ArrayList<>();
+        for (int player = 0; player < PLAYERS; player++) {
+            String token = register("budget" + player);
+            tokens.add(token);
+            Map<?, ?> session = (Map<?, ?>) call(HttpMethod.POST, "/api/game-sessions/start", token, Map.of());
+            Number sessionId = (Number) session.get("id");
+
+            for (int beat = 1; beat <= HEARTBEATS; beat++) {
+                call(HttpMethod.PUT, "/api/game-sessions/" + sessionId, token, Map.of(
+                    "score", 100 * beat + player, "levelReached", beat, "durationSeconds", 10 * beat,
+                    "ghostsEaten", beat, "powerUpsUsed", 1));
+            }
+            call(HttpMethod.GET, "/api/game-sessions/active", token, null);
+            call(HttpMethod.GET, "/api/game-sessions/" + sessionId, token, null);
+
+            call(HttpMethod.POST, "/api/game-sessions/" + sessionId + "/end", token, Map.of("status", "COMPLETED"));
+            call(HttpMethod.GET, "/api/game-sessions", token, null);
+            call(HttpMethod.GET, "/api/game-sessions/history?pageSize=2", token, null);
+        }
+
+        callLeaderboards(restTemplate, tokens.get(0));
+
+        // The heartbeats went through the interceptor, so a zero below is not vacuous
+        DistributionSummary heartbeats = meterRegistry.find("http.server.requests.queries")
+            .tags("method", "PUT", "uri", "/api/game-sessions/{sessionId}")
+            .summary();
+        assertThat(heartbeats).isNotNull();
+        assertThat(heartbeats.count()).isEqualTo(PLAYERS * HEARTBEATS);
+
+        assertNoOverruns(meterRegistry);
+    }
+
+    // A database of its own, as the other tests' context keeps its index built from the shared one
+    @Nested
+    @TestPropertySource(properties = {
+        "leaderboard.index.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:dcisman-test-fallback;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+            + "CASE_INSENSITIVE_IDENTIFIERS=TRUE;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+    })
+    class WithoutLeaderboardIndex {
+
+        @Autowired
+        private TestRestTemplate fallbackRestTemplate;
+
+        @Autowired
+        private MeterRegistry fallbackMeterRegistry;
+
+        @Test
+        void leaderboardEndpointsStayWithinTheirBudgetsOnTheDatabase() {
+            String token = register(fallbackRestTemplate, "fallback");
+            Map<?, ?> session = (Map<?, ?>) call(fallbackRestTemplate, HttpMethod.POST, "/api/game-sessions/start",
+                token, Map.of());
+            call(fallbackRestTemplate, HttpMethod.POST, "/api/game-sessions/" + session.get("id") + "/end", token,
+                Map.of("score", 500, "levelReached", 2, "ghostsEaten", 3, "status", "COMPLETED"));
+
+            callLeaderboards(fallbackRestTemplate, token);
+
+            // Without the index every page reads the database, so the budgets are really exercised
+            DistributionSummary pages = fallbackMeterRegistry.find("http.server.requests.queries")
+                .tags("method", "GET", "uri", "/api/leaderboard/high-score")
+                .summary();
+            assertThat(pages).isNotNull();
+            assertThat(pages.totalAmount()).isPositive();
+
+            assertNoOverruns(fallbackMeterRegistry);
+        }
+    }
+
+    // Numbered pages, then the page after the first page's cursor
+    private static void callLeaderboards(TestRestTemplate restTemplate, String token) {
+        for (String path : LEADERBOARD_PATHS) {
+            call(restTemplate, HttpMethod.GET, path, token, null);
+        }
+        Map<?, ?> firstPage = (Map<?, ?>) call(restTemplate, HttpMethod.GET, "/api/leaderboard/high-score?pageSize=1",
+            token, null);
+        assertThat(firstPage.get("nextCursor")).isNotNull();
+        call(restTemplate, HttpMethod.GET, "/api/leaderboard/high-score?pageSize=1&cursor=" + firstPage.get("nextCursor"),
+            token, null);
+    }
+
+    private static void assertNoOverruns(MeterRegistry meterRegistry) {
+        List<String> overruns = new ArrayList<>();
+        for (Counter counter : meterRegistry.find(QueryBudgetInterceptor.EXCEEDED_METRIC).counters()) {
+            if (counter.count() > 0) {
+                overruns.add(counter.getId().getTag("method") + " " + counter.getId().getTag("uri")
+                    + " x" + (long) counter.count());
+            }
+        }
+        assertThat(overruns).as("endpoints over their query budget").isEmpty();
+    }
+
+    private String register(String username) {
+        return register(restTemplate, username);
+    }
+
+    private Object call(HttpMethod method, String path, String token, Object body) {
+        return call(restTemplate, method, path, token, body);
+    }
+
+    private static String register(TestRestTemplate restTemplate, String username) {
+        ResponseEntity<Map> response = restTemplate.postForEntity("/api/auth/register", Map.of(
+            "username", username, "email", username + "@dcisman.test", "password", "budget-password"), Map.class);
+        assertThat(response.getStatusCode().is2xxSuccessful()).as("register " + username).isTrue();
+        return (String) response.getBody().get("token");
+    }
+
+    private static Object call(TestRestTemplate restTemplate, HttpMethod method, String path, String token,
+                               Object body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        ResponseEntity<Object> response = restTemplate.exchange(path, method, new HttpEntity<>(body, headers),
+            Object.class);
+        assertThat(response.getStatusCode().is2xxSuccessful())
+            .as(method + " " + path + " answered " + response.getStatusCode() + " " + response.getBody())
+            .isTrue();
+        return response.getBody();
+    }
+}
@@ -0,0 +1,61 @@
+package com.dcisman.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BCryptCostPasswordEncoderTest {
+
+    private static final String PASSWORD = "correct-horse-battery";
+
+    @Test
+    void hashesWithinTheToleranceAreKeptAndOthersAreRehashed() {
+        BCryptCostPasswordEncoder encoder = new BCryptCostPasswordEncoder(6, 1);
+
+        assertThat(encoder.upgradeEncoding(hash(6))).isFalse();
+        assertThat(encoder.upgradeEncoding(hash(5))).isFalse();
+        assertThat(encoder.upgradeEncoding(hash(7))).isFalse();
+        assertThat(encoder.upgradeEncoding(hash(4))).isTrue();
+        assertThat(encoder.upgradeEncoding(hash(8))).isTrue();
+    }
+
+    @Test
+    void neighbouringCalibrationsDoNotRehashEachOthersHashes() {
+        BCryptCostPasswordEncoder instanceA = new BCryptCostPasswordEncoder(5, 1);
+        BCryptCostPasswordEncoder instanceB = new BCryptCostPasswordEncoder(6, 1);
+
+        assertThat(instanceB.upgradeEncoding(instanceA.encode(PASSWORD))).isFalse();
+        assertThat(instanceA.upgradeEncoding(instanceB.encode(PASSWORD))).isFalse();
+    }
+
+    @Test
+    void zeroToleranceRehashesAnyOtherCost() {
+        BCryptCostPasswordEncoder encoder = new BCryptCostPasswordEncoder(6);
+
+        assertThat(encoder.upgradeEncoding(hash(6))).isFalse();
+        assertThat(encoder.upgradeEncoding(hash(5))).isTrue();
+    }
+
+    @Test
+    void otherVersionsAndNonBcryptHashesAreRehashed() {
+        BCryptCostPasswordEncoder encoder = new BCryptCostPasswordEncoder(6, 1);
+
+        assertThat(encoder.upgradeEncoding(
+            new BCryptPasswordEncoder(BCryptPasswordEncoder.BCryptVersion.$2B, 6).encode(PASSWORD))).isTrue();
+        assertThat(encoder.upgradeEncoding("{noop}" + PASSWORD)).isTrue();
+    }
+
+    @Test
+    void verifiesHashesMadeAtAnyCost() {
+        BCryptCostPasswordEncoder encoder = new BCryptCostPasswordEncoder(6, 1);
+
+        assertThat(encoder.matches(PASSWORD, hash(4))).isTrue();
+        assertThat(encoder.matches(PASSWORD, hash(8))).isTrue();
+        assertThat(encoder.matches("wrong-password", hash(6))).isFalse();
+    }
+
+    private static String hash(int cost) {
+        return new BCryptPasswordEncoder(BCryptPasswordEncoder.BCryptVersion.$2A, cost).encode(PASSWORD);
+    }
+}
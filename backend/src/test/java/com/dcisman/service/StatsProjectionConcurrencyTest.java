@@ -0,0 +1,226 @@
+package com.dcisman.service;
+
+import com.dcisman.dto.EndSessionRequest;
+import com.dcisman.entity.GameSession;
+import com.dcisman.entity.User;
+import com.dcisman.event.GameSessionEndedEvent;
+import com.dcisman.repository.GameSessionRepository;
+import com.dcisman.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ends thousands of sessions in parallel and checks that every player's
+ * {@code user_stats} row adds up to exactly what was sent. Half the sessions
+ * belong to a few hot players, so many ends upsert the same stats row at the
+ * same time; the rest are spread over the other players, so the first upsert
+ * of a row also races with its neighbours. The stats projection is synchronous
+ * here, and the websocket endpoint needs a real servlet container, so the
+ * backend is started on a random port.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "stats-projection.async=false")
+@ActiveProfiles("test")
+class StatsProjectionConcurrencyTest {
+
+    private static final int PLAYERS = 40;
+    private static final int HOT_PLAYERS = 4;
+    private static final int SESSIONS = 2_000;
+    private static final int THREADS = 32;
+    private static final int BATCHES = 16;
+
+    private static final String STATS_SQL =
+        "SELECT total_games_played, total_games_completed, total_ghosts_eaten, total_power_ups_used, " +
+        "highest_score FROM user_stats WHERE user_id = ?";
+
+    private static final AtomicInteger RUNS = new AtomicInteger();
+
+    @Autowired
+    private GameSessionService gameSessionService;
+
+    @Autowired
+    private UserStatsService userStatsService;
+
+    @Autowired
+    private GameSessionRepository gameSessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ExecutorService executor;
+    private List<User> users;
+
+    private static final class Expected {
+        long played;
+        long completed;
+        long ghosts;
+        long powerUps;
+        long highScore;
+
+        void add(int score, int ghostsEaten, int powerUpsUsed, boolean isCompleted) {
+            played++;
+            completed += isCompleted ? 1 : 0;
+            ghosts += ghostsEaten;
+            powerUps += powerUpsUsed;
+            highScore = Math.max(highScore, score);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+        int run = RUNS.incrementAndGet();
+        List<User> created = new ArrayList<>(PLAYERS);
+        for (int player = 0; player < PLAYERS; player++) {
+            String username = "stress" + run + "x" + player;
+            created.add(User.builder()
+                .username(username)
+                .email(username + "@dcisman.test")
+                .passwordHash("unused")
+                .name("Stress " + run + " " + player)
+                .idNumber(String.valueOf(30_000_000 + run * 1_000 + player))
+                .build());
+        }
+        users = userRepository.saveAll(created);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void parallelEndsAddUpInEveryPlayersStats() throws Exception {
+        List<GameSession> sessions = saveSessions(GameSession.Status.IN_PROGRESS);
+
+        Map<Long, Expected> expected = new HashMap<>();
+        List<Callable<Object>> ends = new ArrayList<>(SESSIONS);
+        for (int i = 0; i < sessions.size(); i++) {
+            GameSession session = sessions.get(i);
+            Long userId = session.getUser().getId();
+            int score = 37 * i % 9_973;
+            int ghosts = 1 + i % 9;
+            int powerUps = i % 4;
+            boolean completed = i % 3 != 0;
+            expected.computeIfAbsent(userId, id -> new Expected()).add(score, ghosts, powerUps, completed);
+
+            EndSessionRequest request = new EndSessionRequest(
+                score, 1 + i % 7, 30 + i % 60, ghosts, powerUps, completed ? "COMPLETED" : "ABANDONED");
+            ends.add(() -> gameSessionService.endSession(session.getId(), userId, request));
+        }
+        Collections.shuffle(ends, new Random(SESSIONS));
+        runTogether(ends);
+
+        assertStats(expected);
+    }
+
+    @Test
+    void sessionsDeliveredToSeveralBatchesAtOnceAreCountedOnce() throws Exception {
+        // Ended but not yet projected, as the queue and the sweep can both hand them over
+        List<GameSession> sessions = saveSessions(GameSession.Status.COMPLETED);
+        Map<Long, Expected> expected = new HashMap<>();
+        List<GameSessionEndedEvent> ended = new ArrayList<>(SESSIONS);
+        for (GameSession session : sessions) {
+            expected.computeIfAbsent(session.getUser().getId(), id -> new Expected())
+                .add(session.getScore(), session.getGhostsEaten(), session.getPowerUpsUsed(), true);
+            ended.add(GameSessionEndedEvent.of(session));
+        }
+
+        // Every batch overlaps with every other one, each in its own order
+        List<Callable<Object>> batches = new ArrayList<>(BATCHES);
+        for (int batch = 0; batch < BATCHES; batch++) {
+            List<GameSessionEndedEvent> events = new ArrayList<>(ended);
+            Collections.shuffle(events, new Random(batch));
+            List<GameSessionEndedEvent> slice = events.subList(0, SESSIONS * 3 / 4);
+            batches.add(() -> userStatsService.applyEndedSessions(slice));
+        }
+        runTogether(batches);
+        // Whatever no slice happened to carry is applied last, on its own
+        userStatsService.applyEndedSessions(ended);
+
+        assertStats(expected);
+    }
+
+    // Half the sessions go to the hot players, the rest round-robin over everyone else
+    private List<GameSession> saveSessions(GameSession.Status status) {
+        List<GameSession> sessions = new ArrayList<>(SESSIONS);
+        for (int i = 0; i < SESSIONS; i++) {
+            User user = i % 2 == 0
+                ? users.get(i / 2 % HOT_PLAYERS)
+                : users.get(HOT_PLAYERS + i / 2 % (PLAYERS - HOT_PLAYERS));
+            sessions.add(GameSession.builder()
+                .user(user)
+                .score(53 * i % 7_919)
+                .levelReached(1 + i % 4)
+                .durationSeconds(20 + i % 40)
+                .ghostsEaten(2 + i % 6)
+                .powerUpsUsed(1 + i % 2)
+                .status(status)
+                .endedAt(status == GameSession.Status.IN_PROGRESS ? null : LocalDateTime.now())
+                .build());
+        }
+        return gameSessionRepository.saveAll(sessions);
+    }
+
+    // Releases every task at once so they contend on the same stats rows
+    private void runTogether(List<Callable<Object>> tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>(tasks.size());
+        for (Callable<Object> task : tasks) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        for (Future<Object> future : futures) {
+            future.get(120, TimeUnit.SECONDS);
+        }
+    }
+
+    private void assertStats(Map<Long, Expected> expected) {
+        assertThat(expected).hasSize(PLAYERS);
+        assertThat(expected.values().stream().mapToLong(stats -> stats.played).sum()).isEqualTo(SESSIONS);
+
+        for (User user : users) {
+            Expected stats = expected.get(user.getId());
+            Map<String, Object> actual = jdbcTemplate.queryForMap(STATS_SQL, user.getId());
+            String player = user.getUsername() + " ";
+            assertThat(((Number) actual.get("total_games_played")).longValue())
+                .as(player + "games played").isEqualTo(stats.played);
+            assertThat(((Number) actual.get("total_games_completed")).longValue())
+                .as(player + "games completed").isEqualTo(stats.completed);
+            assertThat(((Number) actual.get("total_ghosts_eaten")).longValue())
+                .as(player + "ghosts eaten").isEqualTo(stats.ghosts);
+            assertThat(((Number) actual.get("total_power_ups_used")).longValue())
+                .as(player + "power-ups used").isEqualTo(stats.powerUps);
+            assertThat(((Number) actual.get("highest_score")).longValue())
+                .as(player + "high score").isEqualTo(stats.highScore);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.dcisman.service;
+
+import com.dcisman.entity.User;
+import com.dcisman.event.UserAccountStatusChangedEvent;
+import com.dcisman.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserCacheTest {
+
+    private static final long USER_ID = 7L;
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        userCache = new UserCache(userRepository);
+        ReflectionTestUtils.setField(userCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(userCache, "ttlSeconds", 300L);
+        userCache.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void aLoadThatReadTheRowBeforeAnEvictionDoesNotCacheIt() throws Exception {
+        CountDownLatch read = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        when(userRepository.findById(anyLong())).thenAnswer(invocation -> {
+            if (loads.incrementAndGet() > 1) {
+                return Optional.of(user(false));
+            }
+            // Read the active row, then stall until the deactivation has committed and evicted
+            Optional<User> stale = Optional.of(user(true));
+            read.countDown();
+            evicted.await(5, TimeUnit.SECONDS);
+            return stale;
+        });
+
+        CompletableFuture<Optional<UserCache.CachedUser>> slowLoad =
+            CompletableFuture.supplyAsync(() -> userCache.findById(USER_ID));
+        assertThat(read.await(5, TimeUnit.SECONDS)).isTrue();
+        userCache.onAccountStatusChanged(new UserAccountStatusChangedEvent(USER_ID, false));
+        evicted.countDown();
+
+        assertThat(slowLoad.get(5, TimeUnit.SECONDS)).hasValueSatisfying(user -> assertThat(user.active()).isTrue());
+        assertThat(userCache.findById(USER_ID)).hasValueSatisfying(user -> assertThat(user.active()).isFalse());
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void evictionInsideATransactionWaitsForTheCommit() {
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user(true)));
+        userCache.findById(USER_ID);
+
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        userCache.evict(USER_ID);
+        userCache.findById(USER_ID);
+        assertThat(userCache.stats()).containsEntry("misses", 1L);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        userCache.findById(USER_ID);
+        assertThat(userCache.stats()).containsEntry("misses", 2L);
+    }
+
+    private static User user(boolean active) {
+        return User.builder()
+            .id(USER_ID)
+            .username("cached")
+            .email("cached@dcisman.test")
+            .passwordHash("unused")
+            .isActive(active)
+            .build();
+    }
+}
@@ -84,6 +84,18 @@ export const GameOverModal: React.FC<GameOverModalProps> = ({
               </div>
             </div>
 
+            {!isGuest && session?.scorePercentile != null && (
+              <div className='text-center'>
+                <p className='text-gray-400 font-family-vt323 text-lg'>
+                  You beat{' '}
+                  <span className='text-pacman-yellow font-bold'>
+                    {session.scorePercentile}%
+                  </span>{' '}
+                  of players
+                </p>
+              </div>
+            )}
+
             {displaySession.powerUpsUsed > 0 && (
               <div className='text-center'>
                 <p className='text-gray-400 font-family-vt323 text-lg'>
@@ -1,8 +1,8 @@
-import React, { useEffect, useState, useMemo } from 'react';
+import React, { useCallback, useEffect, useState } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { Card, Button } from '@/components/ui';
 import {
-  getUserSessions,
+  getSessionHistory,
   type GameSessionData,
 } from '@/services/gameSessionService';
 import { useAuth } from '@/hooks/useAuth';
@@ -16,38 +16,50 @@ type TabType = 'ALL' | 'COMPLETED' | 'ABANDONED';
 export const RecentGames: React.FC = () => {
   const navigate = useNavigate();
   const { user, isGuest } = useAuth();
-  const [sessions, setSessions] = useState<GameSessionData[]>([]);
+  // Pages fetched so far for the active tab, and the cursor that follows each one
+  const [pages, setPages] = useState<GameSessionData[][]>([]);
+  const [nextCursors, setNextCursors] = useState<(string | null)[]>([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState<string | null>(null);
   const [activeTab, setActiveTab] = useState<TabType>('ALL');
   const [currentPage, setCurrentPage] = useState(0);
   const pageSize = 5;
 
-  useEffect(() => {
-    if (isGuest) {
-      setLoading(false);
-      return;
-    }
-
-    const fetchSessions = async () => {
+  const fetchPage = useCallback(
+    async (
+      tab: TabType,
+      cursor: string | null,
+      loadedPages: GameSessionData[][],
+      loadedCursors: (string | null)[]
+    ) => {
       try {
         setLoading(true);
-        const data = await getUserSessions();
-        const sorted = data.sort(
-          (a, b) =>
-            new Date(b.startedAt).getTime() - new Date(a.startedAt).getTime()
+        const data = await getSessionHistory(
+          pageSize,
+          cursor,
+          tab === 'ALL' ? undefined : tab
         );
-        setSessions(sorted);
+        setPages([...loadedPages, data.sessions]);
+        setNextCursors([...loadedCursors, data.nextCursor]);
+        setCurrentPage(loadedPages.length);
       } catch (err) {
         console.error('failed to fetch sessions:', err);
         setError('Failed to load game history');
       } finally {
         setLoading(false);
       }
-    };
+    },
+    []
+  );
 
-    fetchSessions();
-  }, [isGuest]);
+  useEffect(() => {
+    if (isGuest) {
+      setLoading(false);
+      return;
+    }
+
+    fetchPage('ALL', null, [], []);
+  }, [isGuest, fetchPage]);
 
   useEffect(() => {
     const handleKeyDown = (e: KeyboardEvent) => {
@@ -60,27 +72,31 @@ export const RecentGames: React.FC = () => {
     return () => window.removeEventListener('keydown', handleKeyDown);
   }, [navigate]);
 
-  const filteredSessions = useMemo(() => {
-    if (activeTab === 'ALL') return sessions;
-    return sessions.filter((session) => session.status === activeTab);
-  }, [sessions, activeTab]);
-
-  const paginatedSessions = useMemo(() => {
-    const startIndex = currentPage * pageSize;
-    return filteredSessions.slice(startIndex, startIndex + pageSize);
-  }, [filteredSessions, currentPage, pageSize]);
-
-  const totalPages = Math.ceil(filteredSessions.length / pageSize);
+  const paginatedSessions = pages[currentPage] ?? [];
+  const lastCursor = nextCursors[nextCursors.length - 1] ?? null;
+  const hasMore = lastCursor !== null;
+  // Only pages already fetched, plus the next one when there is more history, are reachable
+  const totalPages = pages.length + (hasMore ? 1 : 0);
+  const hasAnySessions = activeTab !== 'ALL' || (pages[0]?.length ?? 0) > 0;
+
+  const goToPage = (page: number) => {
+    if (page < pages.length) {
+      setCurrentPage(page);
+    } else if (page === pages.length && hasMore) {
+      fetchPage(activeTab, lastCursor, pages, nextCursors);
+    }
+  };
 
   const handleTabChange = (tab: TabType) => {
     setActiveTab(tab);
+    setPages([]);
+    setNextCursors([]);
     setCurrentPage(0);
+    fetchPage(tab, null, [], []);
   };
 
   const handleNextPage = () => {
-    if (currentPage < totalPages - 1) {
-      setCurrentPage((prev) => prev + 1);
-    }
+    goToPage(currentPage + 1);
   };
 
   const handlePreviousPage = () => {
@@ -90,7 +106,7 @@ export const RecentGames: React.FC = () => {
   };
 
   const handlePageClick = (page: number) => {
-    setCurrentPage(page);
+    goToPage(page);
   };
 
   return (
@@ -106,7 +122,7 @@ export const RecentGames: React.FC = () => {
             </h3>
           </div>
           <div className='flex items-center gap-4'>
-            {!loading && filteredSessions.length > 0 && (
+            {paginatedSessions.length > 0 && (
               <PaginationControls
                 currentPage={currentPage}
                 totalPages={totalPages}
@@ -125,7 +141,7 @@ export const RecentGames: React.FC = () => {
           </div>
         </div>
 
-        {loading && (
+        {loading && pages.length === 0 && (
           <div className='text-center py-12'>
             <p className='text-white font-family-vt323 text-2xl'>
               Loading game history...
@@ -156,7 +172,7 @@ export const RecentGames: React.FC = () => {
           />
         )}
 
-        {!loading && !error && !isGuest && sessions.length === 0 && (
+        {!loading && !error && !isGuest && !hasAnySessions && (
           <div className='text-center py-12'>
             <p className='text-gray-400 font-family-vt323 text-2xl mb-4'>
               No games played yet
@@ -167,7 +183,7 @@ export const RecentGames: React.FC = () => {
           </div>
         )}
 
-        {!loading && !error && !isGuest && sessions.length > 0 && (
+        {!error && !isGuest && hasAnySessions && (
           <>
             <div className='flex gap-2 mb-4 pb-2'>
               {(['ALL', 'COMPLETED', 'ABANDONED'] as TabType[]).map((tab) => {
@@ -188,7 +204,7 @@ export const RecentGames: React.FC = () => {
               })}
             </div>
 
-            {filteredSessions.length === 0 ? (
+            {!loading && paginatedSessions.length === 0 ? (
               <div className='text-center py-12'>
                 <p className='text-gray-400 font-family-vt323 text-2xl'>
                   No {activeTab.toLowerCase()} games found
@@ -12,6 +12,7 @@ export interface GameSessionData {
   status: 'IN_PROGRESS' | 'COMPLETED' | 'ABANDONED';
   startedAt: string;
   endedAt: string | null;
+  scorePercentile?: number | null;
 }
 
 export interface UpdateSessionData {
@@ -22,6 +23,12 @@ export interface UpdateSessionData {
   powerUpsUsed?: number;
 }
 
+export interface GameSessionHistory {
+  sessions: GameSessionData[];
+  pageSize: number;
+  nextCursor: string | null;
+}
+
 export interface EndSessionData {
   score: number;
   levelReached: number;
@@ -62,6 +69,22 @@ export const getUserSessions = async (): Promise<GameSessionData[]> => {
 };
 
 
+export const getSessionHistory = async (
+  pageSize: number,
+  cursor?: string | null,
+  status?: 'COMPLETED' | 'ABANDONED'
+): Promise<GameSessionHistory> => {
+  const response = await api.get('/game-sessions/history', {
+    params: {
+      pageSize,
+      cursor: cursor ?? undefined,
+      status,
+    },
+  });
+  return response.data;
+};
+
+
 export const getGameSession = async (
   sessionId: number
 ): Promise<GameSessionData> => {
@@ -11,12 +11,14 @@ export interface LeaderboardEntry {
 
 export interface LeaderboardResponse {
   category: string;
+  window: string;
   entries: LeaderboardEntry[];
   lastUpdated: string;
   totalPlayers: number;
   currentPage: number;
   totalPages: number;
   pageSize: number;
+  nextCursor: string | null;
 }
 
 /**
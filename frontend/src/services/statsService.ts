@@ -24,6 +24,38 @@ export const getUserStats = async (userId: number): Promise<UserStats> => {
   return response.data;
 };
 
+export interface StatsDistribution {
+  category: string;
+  totalPlayers: number;
+  buckets: { from: number; to: number; count: number }[];
+  percentiles: Record<string, number>;
+  lastUpdated: string;
+}
+
+export interface StatsPercentile {
+  category: string;
+  value: number;
+  totalPlayers: number;
+  playersBelow: number;
+  percentile: number | null;
+}
+
+export const getStatsDistribution = async (
+  category: 'high-score' | 'highest-level' | 'total-ghosts',
+  buckets: number = 20
+): Promise<StatsDistribution> => {
+  const response = await api.get(`/stats/distribution/${category}?buckets=${buckets}`);
+  return response.data;
+};
+
+export const getStatsPercentile = async (
+  category: 'high-score' | 'highest-level' | 'total-ghosts',
+  value: number
+): Promise<StatsPercentile> => {
+  const response = await api.get(`/stats/percentile/${category}?value=${value}`);
+  return response.data;
+};
+
 export const formatTime = (seconds: number): string => {
   if (seconds < 60) {
     return `${seconds}s`;